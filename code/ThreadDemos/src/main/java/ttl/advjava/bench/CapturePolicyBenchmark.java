@@ -0,0 +1,117 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.trywrap.CapturePolicy;
+import ttl.trywrap.SoloTry;
+import ttl.trywrap.TryFailure;
+import ttl.trywrap.TryWrap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failure heavy workloads under each CapturePolicy.
+ *
+ * failRate is the percentage of calls that fail, depth is how many frames
+ * down the failure is thrown from (the deeper, the more a stack walk costs).
+ * plainException throws an IllegalArgumentException instead of a
+ * TryFailure, for comparison - the policy makes no difference to it.
+ *
+ * @author whynot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CapturePolicyBenchmark {
+
+    @Param({"FULL", "STACKLESS", "SAMPLED_100"})
+    private String policyName;
+
+    @Param({"50", "100"})
+    private int failRate;
+
+    @Param({"10"})
+    private int depth;
+
+    private CapturePolicy policy;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        switch (policyName) {
+            case "FULL":
+                policy = CapturePolicy.FULL;
+                break;
+            case "STACKLESS":
+                policy = CapturePolicy.STACKLESS;
+                break;
+            default:
+                policy = CapturePolicy.sampled(100);
+        }
+    }
+
+    @Benchmark
+    public TryWrap<Integer> tryWrap() {
+        return TryWrap.of(policy, () -> parse(next(), depth));
+    }
+
+    @Benchmark
+    public SoloTry<Integer> soloTry() {
+        return SoloTry.of(policy, () -> parse(next(), depth));
+    }
+
+    @Benchmark
+    public TryWrap<Integer> plainException() {
+        return TryWrap.of(policy, () -> parsePlain(next(), depth));
+    }
+
+    private int next() {
+        return counter++ % 100;
+    }
+
+    private int parse(int input, int frames) throws TryFailure {
+        if (frames > 0) {
+            return parse(input, frames - 1);
+        }
+        if (input < failRate) {
+            throw TryFailure.of("Bad input");
+        }
+        return input;
+    }
+
+    private int parsePlain(int input, int frames) {
+        if (frames > 0) {
+            return parsePlain(input, frames - 1);
+        }
+        if (input < failRate) {
+            throw new IllegalArgumentException("Bad input");
+        }
+        return input;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(CapturePolicyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,153 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.advjava.threads.prodcon.Kitchen;
+import ttl.advjava.threads.prodcon.LockOrderBoard;
+import ttl.advjava.threads.prodcon.Order;
+import ttl.advjava.threads.prodcon.OrderBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders per second with 1 to 8 Cooks, all sharing one LockOrderBoard
+ * or each at its own station in a Kitchen.
+ *
+ * Set up like OrderBoardBenchmark, except that each order takes some
+ * cooking (Blackhole.consumeCPU(work)), so adding Cooks has something
+ * to speed up.  With the shared board every post and every cook takes
+ * the same lock; in the Kitchen a Cook only meets the others when it
+ * steals.  The Cooks should scale until they run out of cores.
+ *
+ *   java -jar target/ThreadDBenchmarks.jar KitchenBenchmark -p cooks=1,2,4
+ *
+ * @author whynot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KitchenBenchmark {
+
+    private static final int ORDERS = 100_000;
+
+    @Param({"lock", "kitchen-rr", "kitchen-least"})
+    private String board;
+
+    @Param({"2"})
+    private int waiters;
+
+    @Param({"1", "2", "4", "8"})
+    private int cooks;
+
+    /**
+     * Blackhole.consumeCPU tokens per order.
+     */
+    @Param({"0", "200"})
+    private int work;
+
+    private ExecutorService pool;
+    private Order[] orders;
+    private OrderBoard orderBoard;
+    private OrderBoard[] cookBoards;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = Executors.newFixedThreadPool(waiters + cooks);
+        orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = new Order();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void makeBoard() {
+        cookBoards = new OrderBoard[cooks];
+        switch (board) {
+            case "lock":
+                orderBoard = new LockOrderBoard();
+                for (int c = 0; c < cooks; c++) {
+                    cookBoards[c] = orderBoard;
+                }
+                return;
+            case "kitchen-rr":
+            case "kitchen-least":
+                Kitchen kitchen = new Kitchen(cooks, board.equals("kitchen-rr")
+                        ? Kitchen.Placement.ROUND_ROBIN : Kitchen.Placement.LEAST_LOADED);
+                orderBoard = kitchen;
+                for (int c = 0; c < cooks; c++) {
+                    cookBoards[c] = kitchen.station(c);
+                }
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown board: " + board);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void transfer() throws InterruptedException, ExecutionException {
+        OrderBoard b = orderBoard;
+        List<Future<?>> futures = new ArrayList<>(waiters + cooks);
+        for (int w = 0; w < waiters; w++) {
+            int from = w * ORDERS / waiters;
+            int to = (w + 1) * ORDERS / waiters;
+            futures.add(pool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    b.postOrder(orders[i]);
+                }
+            }));
+        }
+        for (int c = 0; c < cooks; c++) {
+            OrderBoard mine = cookBoards[c];
+            int share = (c + 1) * ORDERS / cooks - c * ORDERS / cooks;
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < share; i++) {
+                    mine.cookOrder();
+                    Blackhole.consumeCPU(work);
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(KitchenBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,180 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.advjava.threads.prodcon.BlockingQueueOrderBoard;
+import ttl.advjava.threads.prodcon.LockOrderBoard;
+import ttl.advjava.threads.prodcon.Order;
+import ttl.advjava.threads.prodcon.OrderBoard;
+import ttl.advjava.threads.prodcon.RingBufferOrderBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders per second through each OrderBoard, with 1 to 8 Waiters and
+ * 1 to 8 Cooks and no cooking time, so all we measure is the board.
+ *
+ * Each invocation moves ORDERS orders: the Waiters share them out and
+ * post them, and each Cook cooks its share.  The threads are made once
+ * per trial.  A JMH group benchmark would be the usual way to do this,
+ * but a thread left blocked on a full or empty board at the end of an
+ * iteration would hang it.
+ *
+ * With batch over 1, Waiters post and Cooks cook batches of that size.
+ *
+ * Every board holds capacity orders (the ring rounds up to a power of 2,
+ * so use powers of 2 to compare like with like).  ring-spin burns a core
+ * per waiting thread - only try it with waiters + cooks <= cores.
+ *
+ *   java -jar target/ThreadDBenchmarks.jar OrderBoardBenchmark -p waiters=1,4 -p cooks=1,4
+ *
+ * @author whynot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBoardBenchmark {
+
+    private static final int ORDERS = 100_000;
+
+    @Param({"blockingQueue", "lock", "ring-yield", "ring-park", "ring-block", "ring-spin"})
+    private String board;
+
+    @Param({"1", "2", "4", "8"})
+    private int waiters;
+
+    @Param({"1", "2", "4", "8"})
+    private int cooks;
+
+    @Param({"8"})
+    private int capacity;
+
+    /**
+     * Over 1, the Waiters use postOrders and the Cooks cookOrders.
+     */
+    @Param({"1"})
+    private int batch;
+
+    private ExecutorService pool;
+    private Order[] orders;
+    private OrderBoard orderBoard;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = Executors.newFixedThreadPool(waiters + cooks);
+        orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = new Order();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void makeBoard() {
+        orderBoard = makeBoard(board, capacity, waiters == 1, cooks == 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    static OrderBoard makeBoard(String board, int capacity, boolean singleWaiter, boolean singleCook) {
+        switch (board) {
+            case "blockingQueue":
+                return new BlockingQueueOrderBoard(capacity);
+            case "lock":
+                //Fixed at 5
+                return new LockOrderBoard();
+            case "ring-yield":
+                return new RingBufferOrderBoard(capacity, singleWaiter, singleCook,
+                        RingBufferOrderBoard.WaitStrategy.YIELD);
+            case "ring-park":
+                return new RingBufferOrderBoard(capacity, singleWaiter, singleCook,
+                        RingBufferOrderBoard.WaitStrategy.PARK);
+            case "ring-block":
+                return new RingBufferOrderBoard(capacity, singleWaiter, singleCook,
+                        RingBufferOrderBoard.WaitStrategy.BLOCK);
+            case "ring-spin":
+                return new RingBufferOrderBoard(capacity, singleWaiter, singleCook,
+                        RingBufferOrderBoard.WaitStrategy.BUSY_SPIN);
+            default:
+                throw new IllegalArgumentException("Unknown board: " + board);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS)
+    public void transfer() throws InterruptedException, ExecutionException {
+        OrderBoard b = orderBoard;
+        List<Future<?>> futures = new ArrayList<>(waiters + cooks);
+        for (int w = 0; w < waiters; w++) {
+            int from = w * ORDERS / waiters;
+            int to = (w + 1) * ORDERS / waiters;
+            futures.add(pool.submit(() -> {
+                if (batch > 1) {
+                    List<Order> all = Arrays.asList(orders);
+                    for (int i = from; i < to; i += batch) {
+                        b.postOrders(all.subList(i, Math.min(i + batch, to)));
+                    }
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    b.postOrder(orders[i]);
+                }
+            }));
+        }
+        for (int c = 0; c < cooks; c++) {
+            int share = (c + 1) * ORDERS / cooks - c * ORDERS / cooks;
+            futures.add(pool.submit(() -> {
+                if (batch > 1) {
+                    List<Order> sink = new ArrayList<>(batch);
+                    for (int done = 0; done < share; ) {
+                        sink.clear();
+                        done += b.cookOrders(Math.min(batch, share - done), sink);
+                    }
+                    return;
+                }
+                for (int i = 0; i < share; i++) {
+                    b.cookOrder();
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(OrderBoardBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,69 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.advjava.threads.prodcon.MenuItem;
+import ttl.advjava.threads.prodcon.Order;
+import ttl.advjava.threads.prodcon.OrderPool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing up and clearing away one order: a new Order each time, or one
+ * from an OrderPool.  Run with -prof gc to see the bytes per order:
+ *
+ *   java -jar target/ThreadDBenchmarks.jar OrderPoolBenchmark -prof gc
+ *
+ * The pooled version should show 0 B/op.  Here the same thread acquires
+ * and releases, so it measures the free list and not the return queue
+ * a Cook on another thread would use.
+ *
+ * @author whynot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPoolBenchmark {
+
+    private final OrderPool pool = new OrderPool();
+
+    @Benchmark
+    public Order allocated() {
+        Order order = new Order();
+        order.setMenuItem(MenuItem.of(order.getOrderNumber() % MenuItem.count()));
+        return order;
+    }
+
+    @Benchmark
+    public int pooled() {
+        Order order = pool.acquire();
+        order.setMenuItem(MenuItem.of(order.getOrderNumber() % MenuItem.count()));
+        int tab = order.getOrderNumber();
+        pool.release(order);
+        return tab;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(OrderPoolBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,68 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.trywrap.DoubleTryWrap;
+import ttl.trywrap.TryWrap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A price calculation as a chain of maps, boxed (TryWrap) versus
+ * unboxed (DoubleTryWrap).  Look at gc.alloc.rate.norm - the unboxed
+ * chain should show 0 B/op once C2 has inlined it.
+ *
+ * @author whynot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveTryWrapBenchmark {
+
+    private double basePrice = 12.5;
+    private int quantity = 3;
+
+    @Benchmark
+    public double boxedChain() {
+        return TryWrap.of(() -> basePrice)
+                .map(p -> p * quantity)
+                .map(p -> p * 1.08)
+                .map(p -> p - 1.0)
+                .filter(p -> p > 0)
+                .orElse(0.0);
+    }
+
+    @Benchmark
+    public double primitiveChain() {
+        return DoubleTryWrap.of(() -> basePrice)
+                .map(p -> p * quantity)
+                .map(p -> p * 1.08)
+                .map(p -> p - 1.0)
+                .filter(p -> p > 0)
+                .orElse(0.0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PrimitiveTryWrapBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,82 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.trywrap.SoloTry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of short SoloTry chains.  Run with the gc profiler and look
+ * at gc.alloc.rate.norm: the success chains should be 0 B/op once C2 has
+ * scalar replaced the Success objects.  The failure chain pays for the
+ * one Failure, which is then passed along, not copied.
+ *
+ * The inputs stay inside the Integer cache, so boxing does not allocate
+ * either.
+ *
+ * @author whynot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SoloTryBenchmark {
+
+    private final Exception failure = new IllegalStateException("Bad input");
+    private int counter;
+
+    @Benchmark
+    public int ofMapGet() throws Exception {
+        int input = counter++ & 63;
+        return SoloTry.of(() -> input).map(x -> x + 1).get();
+    }
+
+    @Benchmark
+    public int ofMapMapFlatMapGet() throws Exception {
+        int input = counter++ & 63;
+        return SoloTry.of(() -> input)
+                .map(x -> x + 1)
+                .map(x -> x * 2)
+                .flatMap(x -> SoloTry.of(() -> x - 1))
+                .get();
+    }
+
+    @Benchmark
+    public int failureChainRecover() throws Exception {
+        return SoloTry.<Integer>of(() -> { throw failure; })
+                .map(x -> x + 1)
+                .map(x -> x * 2)
+                .recover(e -> -1)
+                .get();
+    }
+
+    @Benchmark
+    public int fold() throws Exception {
+        int input = counter++ & 63;
+        return SoloTry.of(() -> input).map(x -> x + 1).fold(x -> x, e -> -1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(SoloTryBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,94 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.trywrap.TryBreaker;
+import ttl.trywrap.TryWrap;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64 threads calling through one TryBreaker.
+ *
+ * closed*: the breaker is closed and the supplier works (or fails 1 in
+ * 100 times, which is under the threshold), so every call pays for
+ * recording into the window.  open: the breaker is open and every call
+ * gets the instant left.  direct: no breaker at all, for reference.
+ *
+ * @author whynot
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class TryBreakerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Breakers {
+        TryBreaker closed;
+        TryBreaker open;
+
+        @Setup
+        public void setup() {
+            closed = new TryBreaker(0.5, 100, Duration.ofSeconds(10), Duration.ofSeconds(5));
+            open = new TryBreaker(0.5, 1, Duration.ofSeconds(10), Duration.ofHours(1));
+            open.call(() -> {
+                throw new IllegalStateException("Down");
+            });
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Counter {
+        int count;
+    }
+
+    @Benchmark
+    public TryWrap<Integer> direct(Counter counter) {
+        return TryWrap.of(() -> counter.count++);
+    }
+
+    @Benchmark
+    public TryWrap<Integer> closedSuccess(Breakers breakers, Counter counter) {
+        return breakers.closed.call(() -> counter.count++);
+    }
+
+    @Benchmark
+    public TryWrap<Integer> closedOnePercentFailure(Breakers breakers, Counter counter) {
+        return breakers.closed.call(() -> {
+            if (++counter.count % 100 == 0) {
+                throw new IllegalStateException("Down");
+            }
+            return counter.count;
+        });
+    }
+
+    @Benchmark
+    public TryWrap<Integer> open(Breakers breakers, Counter counter) {
+        return breakers.open.call(() -> counter.count++);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TryBreakerBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
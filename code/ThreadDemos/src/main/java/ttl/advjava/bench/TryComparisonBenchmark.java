@@ -0,0 +1,149 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.trywrap.SoloTry;
+import ttl.trywrap.TryWrap;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same small pipeline written four ways: TryWrap, SoloTry, Optional
+ * (failures caught inside the stage and turned into an empty) and plain
+ * try/catch on ints.
+ *
+ * The first stage "parses" the input and throws for failRate percent of
+ * them; the other depth - 1 stages are cheap maps.  So failRate 0 is the
+ * success-only case, and depth shows what each extra stage costs.
+ *
+ * Throughput, with the gc profiler for gc.alloc.rate.norm.  main() writes
+ * the results to trywrap-comparison.json; from the jar, use
+ *
+ *   java -jar target/ThreadDBenchmarks.jar TryComparisonBenchmark -prof gc -rf json -rff trywrap-comparison.json
+ *
+ * @author whynot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TryComparisonBenchmark {
+
+    private static final int INPUTS = 1024;
+
+    @Param({"0", "1", "10", "50"})
+    private int failRate;
+
+    @Param({"1", "5", "20"})
+    private int depth;
+
+    private int[] inputs;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        //Shuffled, so the branch predictor can't learn which ones fail.
+        Random random = new Random(42);
+        inputs = new int[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            inputs[i] = random.nextInt(100) < failRate ? -1 : random.nextInt(1000);
+        }
+    }
+
+    @Benchmark
+    public int tryWrap() {
+        int input = next();
+        TryWrap<Integer> tw = TryWrap.of(() -> parse(input));
+        for (int i = 1; i < depth; i++) {
+            tw = tw.map(TryComparisonBenchmark::step);
+        }
+        return tw.orElse(-1);
+    }
+
+    @Benchmark
+    public int soloTry() throws Exception {
+        int input = next();
+        SoloTry<Integer> st = SoloTry.of(() -> parse(input));
+        for (int i = 1; i < depth; i++) {
+            st = st.map(TryComparisonBenchmark::step);
+        }
+        return st.fold(x -> x, e -> -1);
+    }
+
+    @Benchmark
+    public int optional() {
+        int input = next();
+        Optional<Integer> opt = Optional.ofNullable(parseOrNull(input));
+        for (int i = 1; i < depth; i++) {
+            opt = opt.map(TryComparisonBenchmark::step);
+        }
+        return opt.orElse(-1);
+    }
+
+    @Benchmark
+    public int tryCatch() {
+        int input = next();
+        try {
+            int value = parse(input);
+            for (int i = 1; i < depth; i++) {
+                value = step(value);
+            }
+            return value;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private int next() {
+        return inputs[counter++ & (INPUTS - 1)];
+    }
+
+    private static int parse(int input) {
+        if (input < 0) {
+            throw new IllegalArgumentException("Bad input: " + input);
+        }
+        return input;
+    }
+
+    private static Integer parseOrNull(int input) {
+        try {
+            return parse(input);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static int step(int x) {
+        return x * 31 + 7;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TryComparisonBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("trywrap-comparison.json")
+                .build();
+
+        new Runner(opt).run();
+    }
+}
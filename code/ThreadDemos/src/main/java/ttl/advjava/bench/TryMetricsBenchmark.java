@@ -0,0 +1,73 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.trywrap.TryMetrics;
+import ttl.trywrap.TryProbe;
+import ttl.trywrap.TryWrap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a TryProbe costs on the success path: an of and a map, with and
+ * without the probe, and with the probe but metrics turned off.  The
+ * difference between plain and probed is the price of two counted ops;
+ * run with -prof gc to see that it allocates no more than plain.
+ *
+ * @author whynot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TryMetricsBenchmark {
+
+    private static final TryProbe PROBE = TryMetrics.probe("bench");
+
+    @Param({"true", "false"})
+    private boolean enabled;
+
+    private int counter;
+
+    @Setup
+    public void setup() {
+        TryMetrics.setEnabled(enabled);
+    }
+
+    @Benchmark
+    public Integer plain() {
+        int input = counter++;
+        return TryWrap.of(() -> input).map(x -> x + 1).orElse(0);
+    }
+
+    @Benchmark
+    public Integer probed() {
+        int input = counter++;
+        return PROBE.map(PROBE.of(() -> input), x -> x + 1).orElse(0);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TryMetricsBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,117 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jol.info.GraphLayout;
+import ttl.trywrap.TryWrap;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocations per op for the TryWrap paths that produce Empties and lefts.
+ *
+ * Run it with the gc profiler and look at gc.alloc.rate.norm:
+ *
+ *   java -jar target/ThreadDBenchmarks.jar TryWrapAllocBenchmark -prof gc
+ *
+ * or just run main.  The legacyEmpty benchmark runs a copy of what
+ * ofEmpty() used to be, LegacyTryWrap below: a new, mutable TryWrap plus
+ * a new NoSuchElementException with a full stack walk on every call.  It
+ * is the "before" number for the ofEmpty, filterRejects and runnable
+ * benchmarks.
+ *
+ * @author whynot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TryWrapAllocBenchmark {
+
+    private String value = "abc";
+    private TryWrap<String> right = TryWrap.ofRight(value);
+    private TryWrap<String> left = TryWrap.ofLeft(new IllegalStateException("left"));
+
+    @Benchmark
+    public LegacyTryWrap<String> legacyEmpty() {
+        return LegacyTryWrap.ofEmpty();
+    }
+
+    @Benchmark
+    public TryWrap<String> ofEmpty() {
+        return TryWrap.ofEmpty();
+    }
+
+    @Benchmark
+    public TryWrap<String> filterRejects() {
+        return right.filter(s -> s.length() > 5);
+    }
+
+    @Benchmark
+    public TryWrap<String> filterAccepts() {
+        return right.filter(s -> s.length() < 5);
+    }
+
+    @Benchmark
+    public TryWrap<?> runnable() {
+        return TryWrap.ofRunnable(() -> value.length());
+    }
+
+    @Benchmark
+    public TryWrap<Integer> mapOnLeft() {
+        return left.map(String::length).map(i -> i * 2);
+    }
+
+    @Benchmark
+    public TryWrap<Integer> mapOnRight() {
+        return right.map(String::length);
+    }
+
+    /**
+     * TryWrap's fields and ofEmpty() as they were before Empty was shared.
+     */
+    public static final class LegacyTryWrap<T> {
+        private T right;
+        private Exception left;
+        private boolean empty = false;
+
+        private LegacyTryWrap(Exception left, T right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        public static <T> LegacyTryWrap<T> ofEmpty() {
+            LegacyTryWrap<T> me = new LegacyTryWrap<>(null, null);
+            me.empty = true;
+            me.left = new NoSuchElementException("Empty TryWrap");
+            return me;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        System.out.println(GraphLayout.parseInstance(TryWrap.ofEmpty()).toFootprint());
+        System.out.println(GraphLayout.parseInstance(TryWrap.ofRight("abc")).toFootprint());
+
+        Options opt = new OptionsBuilder()
+                .include(TryWrapAllocBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
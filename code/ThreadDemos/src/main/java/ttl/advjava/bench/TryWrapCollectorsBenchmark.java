@@ -0,0 +1,108 @@
+package ttl.advjava.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ttl.trywrap.TryWrap;
+import ttl.trywrap.TryWrapCollectors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Splitting a List of TryWrap into successes and failures: the
+ * "manual" way (one filtered pass for each) versus
+ * TryWrapCollectors.partition, sequential and parallel.
+ *
+ * @author whynot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TryWrapCollectorsBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    private List<TryWrap<Integer>> tries;
+
+    @Setup
+    public void setup() {
+        tries = new ArrayList<>(size);
+        Exception failure = new IllegalArgumentException("bad");
+        for (int i = 0; i < size; i++) {
+            tries.add(i % 10 == 0 ? TryWrap.ofLeft(failure) : TryWrap.ofRight(i));
+        }
+    }
+
+    @Benchmark
+    public Object manual() {
+        List<Integer> successes = tries.stream()
+                .filter(TryWrap::isRight)
+                .map(TryWrap::right)
+                .collect(Collectors.toList());
+        List<Exception> failures = tries.stream()
+                .filter(TryWrap::isLeft)
+                .map(TryWrap::left)
+                .collect(Collectors.toList());
+        return new Object[]{successes, failures};
+    }
+
+    @Benchmark
+    public Object partition() {
+        return tries.stream().collect(TryWrapCollectors.partition());
+    }
+
+    @Benchmark
+    public Object partitionSized() {
+        return tries.stream().collect(TryWrapCollectors.partition(tries.size()));
+    }
+
+    @Benchmark
+    public Object manualParallel() {
+        List<Integer> successes = tries.parallelStream()
+                .filter(TryWrap::isRight)
+                .map(TryWrap::right)
+                .collect(Collectors.toList());
+        List<Exception> failures = tries.parallelStream()
+                .filter(TryWrap::isLeft)
+                .map(TryWrap::left)
+                .collect(Collectors.toList());
+        return new Object[]{successes, failures};
+    }
+
+    @Benchmark
+    public Object partitionParallel() {
+        return tries.parallelStream().collect(TryWrapCollectors.partition());
+    }
+
+    @Benchmark
+    public Object sequence() {
+        return tries.stream().collect(TryWrapCollectors.sequence(tries.size()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TryWrapCollectorsBenchmark.class.getSimpleName())
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -1,5 +1,6 @@
 package ttl.advjava.threads.prodcon;
 
+import java.util.Collection;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -14,7 +15,11 @@ public class BlockingQueueOrderBoard implements OrderBoard {
 	BlockingQueue<Order> orders;
 
 	public BlockingQueueOrderBoard() {
-		orders = new LinkedBlockingQueue<Order>(5);
+		this(5);
+	}
+
+	public BlockingQueueOrderBoard(int capacity) {
+		orders = new LinkedBlockingQueue<Order>(capacity);
 	}
 
 	public void postOrder(Order toBeProcessed) {
@@ -35,4 +40,38 @@ public class BlockingQueueOrderBoard implements OrderBoard {
 
 		return returnValue;
 	}
+
+	/**
+	 * Post the orders, in order.  BlockingQueue has no bulk put, but
+	 * unlike postOrder this stops at the first interrupt instead of
+	 * carrying on with the rest.
+	 */
+	public void postOrders(Collection<Order> toBeProcessed) {
+		try {
+			for (Order order : toBeProcessed) {
+				if (!orders.offer(order)) {
+					orders.put(order);
+				}
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Wait for one order, then drainTo for the rest, which takes them all
+	 * under a single lock.
+	 */
+	public int cookOrders(int max, Collection<? super Order> sink) {
+		if (max < 1) {
+			throw new IllegalArgumentException("max must be at least 1: " + max);
+		}
+		try {
+			sink.add(orders.take());
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+			return 0;
+		}
+		return 1 + orders.drainTo(sink, max - 1);
+	}
 }
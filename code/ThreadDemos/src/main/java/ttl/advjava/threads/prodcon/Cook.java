@@ -1,11 +1,19 @@
 package ttl.advjava.threads.prodcon;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The following example represents
  * a Cook that processes orders by
  * taking them from the menu board
  * and cooking them.
  *
+ * In batch mode the Cook takes all the
+ * orders waiting on the board (up to the
+ * batch size) in one go, and then cooks
+ * them one after the other.
+ *
  * @author developintelligence llc
  * @version 1.0
  */
@@ -15,24 +23,73 @@ public class Cook implements Runnable {
     private int burgersCooked = 0;
 
     private OrderBoard ordersToCook;
+    private final int batchSize;
+    private final OrderPool pool;
+    private final boolean announce;
 
     public Cook(OrderBoard orders) {
+        this(orders, 1);
+    }
+
+    public Cook(OrderBoard orders, int batchSize) {
+        this(orders, batchSize, null);
+    }
+
+    /**
+     * Give each Order back to the pool once it is cooked.
+     */
+    public Cook(OrderBoard orders, int batchSize, OrderPool pool) {
+        this(orders, batchSize, pool, true);
+    }
+
+    /**
+     * @param announce Print each Order as it is cooked.  Printing boxes
+     *                 and formats, so it makes garbage for every Order.
+     */
+    public Cook(OrderBoard orders, int batchSize, OrderPool pool, boolean announce) {
         ordersToCook = orders;
+        this.batchSize = batchSize;
+        this.pool = pool;
+        this.announce = announce;
     }
 
     public void run() {
+        if (batchSize > 1) {
+            runBatches();
+            return;
+        }
         while (moreToCook) {
             Order tmpOrder = ordersToCook.cookOrder();
-            try {
-                //cooking time
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            } finally {
-                burgersCooked++;
+            cook(tmpOrder);
+        }
+    }
+
+    private void runBatches() {
+        List<Order> batch = new ArrayList<>(batchSize);
+        while (moreToCook) {
+            batch.clear();
+            ordersToCook.cookOrders(batchSize, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                cook(batch.get(i));
+            }
+        }
+    }
+
+    private void cook(Order tmpOrder) {
+        try {
+            //cooking time
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        } finally {
+            burgersCooked++;
+            if (announce) {
                 System.out.printf("Order up [%d]: %s\n",
                         tmpOrder.getOrderNumber(), tmpOrder.getMenuItem());
             }
+            if (pool != null) {
+                pool.release(tmpOrder);
+            }
         }
     }
 }
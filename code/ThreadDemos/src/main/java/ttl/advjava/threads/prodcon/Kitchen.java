@@ -0,0 +1,381 @@
+package ttl.advjava.threads.prodcon;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A kitchen with a station per Cook, instead of one board that every
+ * Cook fights over.
+ *
+ * Each station has its own deque of orders, a ConcurrentLinkedDeque, so
+ * there are no locks at either end.  Waiters post to the Kitchen, which
+ * picks a station for each order (round-robin, or the station with the
+ * fewest orders waiting).  A Cook works from its own station:
+ *
+ *   Kitchen kitchen = new Kitchen(3, Kitchen.Placement.ROUND_ROBIN);
+ *   new Thread(new Waiter(kitchen)).start();
+ *   for (int i = 0; i < kitchen.stations(); i++) {
+ *       new Thread(new Cook(kitchen.station(i))).start();
+ *   }
+ *
+ * A Cook takes from the front of its own deque.  When that is empty it
+ * steals from the front of another station's deque, so the oldest
+ * orders still go first, and only waits when there is nothing to steal
+ * anywhere.  (Stealing from the back would keep the thief out of the
+ * owner's way, but then a stolen order could be cooked ahead of ones
+ * that have waited longer.  Either way they meet in a failed CAS, not a
+ * lock.)  A waiting Cook parks.  A Waiter wakes the Cook at the station
+ * it posted to, or if that one is busy, any other Cook that is idle, so
+ * the order can be stolen straight away.
+ *
+ * Each station holds at most capacity orders; a counter next to the
+ * deque keeps track, since ConcurrentLinkedDeque has no bound of its
+ * own.  If a station is full the order goes to the next one with room,
+ * and a Waiter only waits when every station is full.  That is the only
+ * time anybody takes a lock: a Cook signals a Condition after taking an
+ * order, if it sees a Waiter blocked.  If a thread is interrupted while
+ * it waits, postOrder gives up (the order is not posted) and cookOrder
+ * returns null, with the interrupt flag left set.
+ *
+ * @author developintelligence llc
+ * @version 1.0
+ */
+public class Kitchen implements OrderBoard {
+
+	public enum Placement {
+		/**
+		 * Each station in turn.  Cheap, and fair as long as the orders all
+		 * take about as long to cook.
+		 */
+		ROUND_ROBIN,
+		/**
+		 * The station with the fewest orders waiting.  Looks at every
+		 * station, so it costs more per order, but a slow Cook gets fewer.
+		 */
+		LEAST_LOADED
+	}
+
+	//How long an idle Cook parks before looking for something to steal
+	//again, in case no Waiter wakes it.
+	private static final long IDLE_NANOS = 1_000_000;
+	//How long a Waiter waits for a signal when every station is full,
+	//before trying again anyway.
+	private static final long FULL_MILLIS = 1;
+
+	private final Deck[] stations;
+	private final Station[] views;
+	private final int capacity;
+	private final Placement placement;
+	private final AtomicInteger next = new AtomicInteger();
+	private final LongAdder steals = new LongAdder();
+
+	//Cooks that are parked, or about to park.  A station's own Cook waits
+	//in its Deck; a Cook without a station waits in roaming.
+	private final AtomicInteger idleCooks = new AtomicInteger();
+	private final ConcurrentLinkedQueue<Thread> roaming = new ConcurrentLinkedQueue<>();
+
+	//Only used when every station is full.
+	private final ReentrantLock fullLock = new ReentrantLock();
+	private final Condition notFull = fullLock.newCondition();
+	private volatile int blockedWaiters;
+
+	/**
+	 * Room for 8 orders per station.
+	 */
+	public Kitchen(int stations, Placement placement) {
+		this(stations, 8, placement);
+	}
+
+	/**
+	 * @param stations How many stations, usually one per Cook
+	 * @param capacity How many orders each station can hold
+	 * @param placement How Waiters' orders are shared out
+	 */
+	public Kitchen(int stations, int capacity, Placement placement) {
+		if (stations < 1) {
+			throw new IllegalArgumentException("Bad number of stations: " + stations);
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Bad capacity: " + capacity);
+		}
+		this.stations = new Deck[stations];
+		this.views = new Station[stations];
+		for (int i = 0; i < stations; i++) {
+			this.stations[i] = new Deck();
+			this.views[i] = new Station(i);
+		}
+		this.capacity = capacity;
+		this.placement = placement;
+	}
+
+	public int stations() {
+		return stations.length;
+	}
+
+	/**
+	 * The board for the Cook at station i.  Its cookOrder works the
+	 * station's own orders first and steals when there are none; its
+	 * postOrder puts the order on that station.  Only one Cook should
+	 * cook from each station.
+	 */
+	public OrderBoard station(int i) {
+		return views[i];
+	}
+
+	/**
+	 * How many orders are waiting at station i.
+	 */
+	public int waiting(int i) {
+		return stations[i].size.get();
+	}
+
+	/**
+	 * How many orders have been cooked at a station other than the one
+	 * they were posted to.
+	 */
+	public long steals() {
+		return steals.sum();
+	}
+
+	/**
+	 * Post the order to the station chosen by the Placement.
+	 */
+	public void postOrder(Order toBeProcessed) {
+		postOrder(pick(), toBeProcessed);
+	}
+
+	/**
+	 * Take an order from any station, for a Cook without a station of its
+	 * own.  Starts at a random station so that such Cooks spread out.
+	 */
+	public Order cookOrder() {
+		return cookOrder(ThreadLocalRandom.current().nextInt(stations.length), false);
+	}
+
+	private int pick() {
+		if (placement == Placement.ROUND_ROBIN || stations.length == 1) {
+			return Math.floorMod(next.getAndIncrement(), stations.length);
+		}
+		int best = 0;
+		int bestSize = Integer.MAX_VALUE;
+		for (int i = 0; i < stations.length; i++) {
+			int size = stations[i].size.get();
+			if (size < bestSize) {
+				best = i;
+				bestSize = size;
+			}
+		}
+		return best;
+	}
+
+	private void postOrder(int station, Order toBeProcessed) {
+		for (;;) {
+			for (int i = 0; i < stations.length; i++) {
+				int at = (station + i) % stations.length;
+				if (stations[at].offer(toBeProcessed, capacity)) {
+					if (idleCooks.get() > 0) {
+						wakeCook(at);
+					}
+					return;
+				}
+			}
+			//Every station is full.
+			if (!awaitRoom()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Wait for a Cook to take an order.  We say we are blocked before the
+	 * last look, and a Cook takes its order before it looks to see if
+	 * anyone is blocked, so one of us always sees the other.
+	 * @return false if we were interrupted
+	 */
+	private boolean awaitRoom() {
+		fullLock.lock();
+		try {
+			blockedWaiters++;
+			try {
+				if (isFull()) {
+					notFull.await(FULL_MILLIS, TimeUnit.MILLISECONDS);
+				}
+			} finally {
+				blockedWaiters--;
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			fullLock.unlock();
+		}
+	}
+
+	private void taken() {
+		if (blockedWaiters > 0) {
+			fullLock.lock();
+			try {
+				notFull.signal();
+			} finally {
+				fullLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Wake a Cook for an order just posted to station: that station's own,
+	 * if it is idle, or else any idle one, who will steal it.
+	 */
+	private void wakeCook(int station) {
+		for (int i = 0; i < stations.length; i++) {
+			Thread cook = stations[(station + i) % stations.length].idleCook;
+			if (cook != null) {
+				LockSupport.unpark(cook);
+				return;
+			}
+		}
+		Thread cook = roaming.peek();
+		if (cook != null) {
+			LockSupport.unpark(cook);
+		}
+	}
+
+	/**
+	 * @param owner Whether we are the station's own Cook, rather than one
+	 *              that started there at random
+	 */
+	private Order cookOrder(int station, boolean owner) {
+		Deck own = stations[station];
+		Thread me = Thread.currentThread();
+		for (;;) {
+			Order order = own.pollFirst();
+			if (order == null) {
+				order = steal(station);
+			}
+			if (order != null) {
+				taken();
+				return order;
+			}
+			//Say we are idle before the last look, so that a Waiter posting
+			//after it sees us and unparks us.
+			idleCooks.incrementAndGet();
+			if (owner) {
+				own.idleCook = me;
+			} else {
+				roaming.add(me);
+			}
+			try {
+				if (isEmpty()) {
+					LockSupport.parkNanos(this, IDLE_NANOS);
+				}
+			} finally {
+				if (owner) {
+					own.idleCook = null;
+				} else {
+					roaming.remove(me);
+				}
+				idleCooks.decrementAndGet();
+			}
+			if (me.isInterrupted()) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Take the oldest order from the front of the first other station
+	 * that has one.
+	 */
+	private Order steal(int thief) {
+		for (int i = 1; i < stations.length; i++) {
+			Order order = stations[(thief + i) % stations.length].pollFirst();
+			if (order != null) {
+				steals.increment();
+				return order;
+			}
+		}
+		return null;
+	}
+
+	private boolean isFull() {
+		for (Deck deck : stations) {
+			if (deck.size.get() < capacity) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean isEmpty() {
+		for (Deck deck : stations) {
+			if (!deck.orders.isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * One station's orders.
+	 */
+	private static final class Deck {
+		private final ConcurrentLinkedDeque<Order> orders = new ConcurrentLinkedDeque<>();
+		//Orders on the deque, plus any a Waiter has made room for but not
+		//added yet.
+		private final AtomicInteger size = new AtomicInteger();
+		//The station's own Cook, while it is idle.
+		private volatile Thread idleCook;
+
+		/**
+		 * Add the order at the back, if there is room.
+		 */
+		private boolean offer(Order order, int capacity) {
+			for (;;) {
+				int current = size.get();
+				if (current >= capacity) {
+					return false;
+				}
+				if (size.compareAndSet(current, current + 1)) {
+					break;
+				}
+			}
+			orders.addLast(order);
+			return true;
+		}
+
+		private Order pollFirst() {
+			return taken(orders.pollFirst());
+		}
+
+		private Order taken(Order order) {
+			if (order != null) {
+				size.decrementAndGet();
+			}
+			return order;
+		}
+	}
+
+	private class Station implements OrderBoard {
+		private final int index;
+
+		private Station(int index) {
+			this.index = index;
+		}
+
+		public void postOrder(Order toBeProcessed) {
+			Kitchen.this.postOrder(index, toBeProcessed);
+		}
+
+		public Order cookOrder() {
+			return Kitchen.this.cookOrder(index, true);
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package ttl.advjava.threads.prodcon;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
@@ -56,6 +58,56 @@ public class LockOrderBoard implements OrderBoard {
 		return returnValue;
 	}
 
+	/**
+	 * Post as many as there is room for each time we have the lock,
+	 * rather than locking once per order.
+	 */
+	public void postOrders(Collection<Order> toBeProcessed) {
+		Iterator<Order> it = toBeProcessed.iterator();
+		fullLock.lock();
+		try {
+			while (it.hasNext()) {
+				while (orders.size() == 5) {
+					full.await();
+				}
+				while (orders.size() < 5 && it.hasNext()) {
+					orders.add(it.next());
+				}
+				empty.signalAll();
+			}
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} finally {
+			fullLock.unlock();
+		}
+	}
+
+	/**
+	 * Take everything that is there (up to max) under one lock.
+	 */
+	public int cookOrders(int max, Collection<? super Order> sink) {
+		if (max < 1) {
+			throw new IllegalArgumentException("max must be at least 1: " + max);
+		}
+		int taken = 0;
+		fullLock.lock();
+		try {
+			while (orders.size() == 0) {
+				empty.await();
+			}
+			List<Order> batch = orders.subList(0, Math.min(max, orders.size()));
+			sink.addAll(batch);
+			taken = batch.size();
+			batch.clear();
+			full.signalAll();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} finally {
+			fullLock.unlock();
+		}
+		return taken;
+	}
+
 }
 
 
@@ -0,0 +1,46 @@
+package ttl.advjava.threads.prodcon;
+
+/**
+ * Everything on the menu.  An Order holds one of these rather than a
+ * String, so writing up an order never makes a new String, and an item
+ * can be looked up by its ordinal.
+ *
+ * @author developintelligence llc
+ * @version 1.0
+ */
+public enum MenuItem {
+	HAMBURGER("Hamburger"),
+	CHEESEBURGER("Cheeseburger");
+
+	private static final MenuItem[] ITEMS = values();
+
+	private final String displayName;
+
+	MenuItem(String displayName) {
+		this.displayName = displayName;
+	}
+
+	/**
+	 * The item with the given ordinal, without the copy values() makes.
+	 *
+	 * @param ordinal
+	 * @return
+	 */
+	public static MenuItem of(int ordinal) {
+		return ITEMS[ordinal];
+	}
+
+	/**
+	 * How many items there are on the menu.
+	 *
+	 * @return
+	 */
+	public static int count() {
+		return ITEMS.length;
+	}
+
+	@Override
+	public String toString() {
+		return displayName;
+	}
+}
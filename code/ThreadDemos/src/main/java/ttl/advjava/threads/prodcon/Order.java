@@ -1,25 +1,63 @@
 package ttl.advjava.threads.prodcon;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Order represent a restaraunt order. An Order is created by a waiter,
  * initialized with a menu item, and then posted to the order board. Once the
  * order has been posted to the board, the cook can take the order and cook it.
  * 
+ * Tab numbers are handed out in blocks: each thread takes the next block
+ * of TAB_BLOCK numbers from a shared counter, and numbers its orders from
+ * that, so no two orders ever get the same tab, and the threads only
+ * touch the shared counter once per block.  Numbers go up within one
+ * thread, but orders from two waiters are not numbered in the order they
+ * were taken.
+ *
+ * An Order can be reused (see OrderPool), in which case it gets a new
+ * tab number each time round.
+ *
  * @author developintelligence llc
  * @version 1.0
  */
 public class Order {
 
-	private static int TAB_NUMBER = 0;
+	static final int TAB_BLOCK = 1024;
+	private static final AtomicInteger NEXT_BLOCK = new AtomicInteger();
+	private static final ThreadLocal<TabBlock> TABS = ThreadLocal.withInitial(TabBlock::new);
+
+	/**
+	 * The deadline of an Order that doesn't have one.
+	 */
+	public static final long NO_DEADLINE = Long.MAX_VALUE;
+
 	private int orderNumber;
-	private String menuItem;
+	private MenuItem menuItem;
+	private long deadline = NO_DEADLINE;
+	private int priority;
+
+	//The free list this Order goes back to when it has been cooked, if it
+	//came from an OrderPool.
+	OrderPool.FreeList home;
+	//The next Order on home's return stack, while this one is on it.
+	Order nextFree;
 
 	/**
 	 * creates a new order with a specific tab number.
 	 * 
 	 */
 	public Order() {
-		orderNumber = ++TAB_NUMBER;
+		orderNumber = nextTabNumber();
+	}
+
+	/**
+	 * creates a new order for the menu item.
+	 * 
+	 * @param menuItem
+	 */
+	public Order(MenuItem menuItem) {
+		this();
+		this.menuItem = menuItem;
 	}
 
 	/**
@@ -27,7 +65,7 @@ public class Order {
 	 * 
 	 * @return
 	 */
-	public String getMenuItem() {
+	public MenuItem getMenuItem() {
 		return menuItem;
 	}
 
@@ -45,7 +83,74 @@ public class Order {
 	 * 
 	 * @param menuItem
 	 */
-	public void setMenuItem(String menuItem) {
+	public void setMenuItem(MenuItem menuItem) {
+		this.menuItem = menuItem;
+	}
+
+	/**
+	 * returns when the order must be cooked by, as a System.nanoTime(), or
+	 * NO_DEADLINE.
+	 * 
+	 * @return
+	 */
+	public long getDeadline() {
+		return deadline;
+	}
+
+	/**
+	 * set's when the order must be cooked by, as a System.nanoTime().  Only
+	 * a PriorityOrderBoard takes any notice.
+	 * 
+	 * @param deadline
+	 */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	/**
+	 * returns the priority of the order, 0 for an ordinary one.
+	 * 
+	 * @return
+	 */
+	public int getPriority() {
+		return priority;
+	}
+
+	/**
+	 * set's the priority of the order.  The higher it is, the sooner a
+	 * PriorityOrderBoard will hand it to a cook.
+	 * 
+	 * @param priority
+	 */
+	public void setPriority(int priority) {
+		if (priority < 0) {
+			throw new IllegalArgumentException("Bad priority: " + priority);
+		}
+		this.priority = priority;
+	}
+
+	/**
+	 * Make this a new order, with the next tab number, for reuse.
+	 */
+	void reopen(MenuItem menuItem) {
+		this.orderNumber = nextTabNumber();
 		this.menuItem = menuItem;
+		this.deadline = NO_DEADLINE;
+		this.priority = 0;
+	}
+
+	private static int nextTabNumber() {
+		TabBlock block = TABS.get();
+		if (block.next == block.end) {
+			int start = NEXT_BLOCK.getAndIncrement() * TAB_BLOCK;
+			block.next = start + 1;
+			block.end = start + TAB_BLOCK + 1;
+		}
+		return block.next++;
+	}
+
+	private static final class TabBlock {
+		private int next;
+		private int end;
 	}
 }
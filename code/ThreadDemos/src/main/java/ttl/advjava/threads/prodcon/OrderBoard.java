@@ -1,7 +1,41 @@
 package ttl.advjava.threads.prodcon;
 
+import java.util.Collection;
+
 public interface OrderBoard {
     void postOrder(Order toBeProcessed);
 
     Order cookOrder();
+
+    /**
+     * Post all the orders, in order, waiting for room as needed.
+     * Boards should override this to post as many as fit in one go,
+     * rather than paying for a lock (or a CAS) per order.
+     */
+    default void postOrders(Collection<Order> toBeProcessed) {
+        for (Order order : toBeProcessed) {
+            postOrder(order);
+        }
+    }
+
+    /**
+     * Wait for at least one order, then take as many as are there, up to
+     * max, and add them to the sink.  This version just takes one; boards
+     * should override it, and check max the same way.
+     *
+     * @return how many orders were added to the sink, 0 only if the board
+     *         gave up waiting
+     * @throws IllegalArgumentException if max is less than 1
+     */
+    default int cookOrders(int max, Collection<? super Order> sink) {
+        if (max < 1) {
+            throw new IllegalArgumentException("max must be at least 1: " + max);
+        }
+        Order order = cookOrder();
+        if (order == null) {
+            return 0;
+        }
+        sink.add(order);
+        return 1;
+    }
 }
@@ -0,0 +1,168 @@
+package ttl.advjava.threads.prodcon;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recycles Orders, so that once it has warmed up a burger joint makes
+ * no garbage per order.
+ *
+ *   OrderPool pool = new OrderPool();
+ *   Order order = pool.acquire(MenuItem.HAMBURGER);   //Waiter
+ *   ...
+ *   pool.release(order);                              //Cook, when it's cooked
+ *
+ * Each thread that acquires Orders has its own free list, which only it
+ * touches, so acquire takes no locks.  A released Order goes back to the
+ * free list of the thread that acquired it, by being pushed onto that
+ * list's return stack with a CAS.  The stack is linked through the
+ * Orders themselves, so returning one takes no lock and allocates
+ * nothing.  The owner takes the whole stack in one go when its free
+ * list runs dry, keeps as many as it has room for, and only makes a new
+ * Order when both are empty.  An Order released by the thread that
+ * acquired it goes straight back on the free list.
+ *
+ * Since an Order only goes back to the thread that acquired it, a Waiter
+ * can keep reading an Order it has posted until it next calls acquire.
+ * An Order must not be released twice, or used after it is released.
+ *
+ * @author developintelligence llc
+ * @version 1.0
+ */
+public class OrderPool {
+
+	private final int capacity;
+	private final ThreadLocal<FreeList> freeLists = ThreadLocal.withInitial(this::newFreeList);
+
+	private final LongAdder created = new LongAdder();
+	private final LongAdder recycled = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+
+	/**
+	 * Keep up to 1024 Orders per thread.
+	 */
+	public OrderPool() {
+		this(1024);
+	}
+
+	/**
+	 * @param capacity How many released Orders each thread keeps
+	 */
+	public OrderPool(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Bad capacity: " + capacity);
+		}
+		this.capacity = capacity;
+	}
+
+	/**
+	 * An Order with a new tab number and no menu item.
+	 */
+	public Order acquire() {
+		return acquire(null);
+	}
+
+	/**
+	 * An Order for the menu item, with a new tab number.
+	 */
+	public Order acquire(MenuItem menuItem) {
+		FreeList freeList = freeLists.get();
+		Order order = freeList.orders.pollFirst();
+		if (order == null) {
+			takeReturns(freeList);
+			order = freeList.orders.pollFirst();
+		}
+		if (order == null) {
+			created.increment();
+			order = new Order(menuItem);
+			order.home = freeList;
+			return order;
+		}
+		recycled.increment();
+		order.reopen(menuItem);
+		return order;
+	}
+
+	/**
+	 * Give the Order back, to the thread that acquired it.  Any thread can
+	 * do this.  If that thread already has as many as it can keep, the
+	 * Order is left for the garbage collector.
+	 */
+	public void release(Order order) {
+		FreeList home = order.home;
+		if (home == null || home.pool != this) {
+			throw new IllegalArgumentException("Order " + order.getOrderNumber() + " is not from this pool");
+		}
+		if (home.owner == Thread.currentThread()) {
+			//No need to go through the return stack.
+			keep(home, order);
+		} else {
+			Order top;
+			do {
+				top = home.returns.get();
+				order.nextFree = top;
+			} while (!home.returns.compareAndSet(top, order));
+		}
+	}
+
+	/**
+	 * How many Orders have been made because there were none to reuse.
+	 */
+	public long created() {
+		return created.sum();
+	}
+
+	/**
+	 * How many times acquire reused an Order.
+	 */
+	public long recycled() {
+		return recycled.sum();
+	}
+
+	/**
+	 * How many released Orders were not kept, because their thread's
+	 * free list was full.
+	 */
+	public long dropped() {
+		return dropped.sum();
+	}
+
+	//Only the owner takes, and it takes everything, so pushes can't
+	//suffer from ABA.
+	private void takeReturns(FreeList freeList) {
+		Order order = freeList.returns.getAndSet(null);
+		while (order != null) {
+			Order next = order.nextFree;
+			order.nextFree = null;
+			keep(freeList, order);
+			order = next;
+		}
+	}
+
+	private void keep(FreeList freeList, Order order) {
+		if (freeList.orders.size() < capacity) {
+			freeList.orders.addFirst(order);
+		} else {
+			dropped.increment();
+		}
+	}
+
+	private FreeList newFreeList() {
+		return new FreeList(this, capacity);
+	}
+
+	static final class FreeList {
+		private final OrderPool pool;
+		private final Thread owner = Thread.currentThread();
+		//Only touched by the owning thread.
+		private final ArrayDeque<Order> orders;
+		//Orders released by other threads, linked through Order.nextFree.
+		private final AtomicReference<Order> returns = new AtomicReference<>();
+
+		private FreeList(OrderPool pool, int capacity) {
+			this.pool = pool;
+			this.orders = new ArrayDeque<>(capacity);
+		}
+	}
+}
@@ -0,0 +1,169 @@
+package ttl.advjava.threads.prodcon;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * An OrderBoard that hands out the most urgent order first, instead of
+ * the oldest - earliest deadline first.
+ *
+ * Each order gets an effective deadline when it is posted:
+ *
+ *   - its own deadline, if it has one (see Order.setDeadline), or
+ *   - the time it was posted plus maxWait, halved for each level of
+ *     priority (see Order.setPriority),
+ *
+ * whichever is sooner.  So a rush order (priority 3, say) jumps ahead of
+ * the ordinary ones, but an ordinary order can never be passed by orders
+ * posted more than maxWait after it: the longer it waits, the more
+ * urgent it is compared to anything new.  That is the starvation guard.
+ * Orders with the same effective deadline come out in the order they
+ * were posted.
+ *
+ * The orders are kept in a ConcurrentSkipListMap keyed by (effective
+ * deadline, sequence number), so Waiters and Cooks don't share a lock.
+ * The board holds at most capacity orders: one Semaphore counts the free
+ * places, and a Waiter waits for one (that's the backpressure), and
+ * another counts the orders, which a Cook waits for.
+ *
+ * If a thread is interrupted while it waits, postOrder gives up (the
+ * order is not posted) and cookOrder returns null, with the interrupt
+ * flag left set.
+ *
+ * @author developintelligence llc
+ * @version 1.0
+ */
+public class PriorityOrderBoard implements OrderBoard {
+
+	//Priorities above this all get the same (tiny) slack.
+	private static final int MAX_PRIORITY_SHIFT = 30;
+
+	private final ConcurrentSkipListMap<Key, Order> orders = new ConcurrentSkipListMap<>();
+	private final AtomicLong sequence = new AtomicLong();
+	private final Semaphore places;
+	private final Semaphore waiting = new Semaphore(0);
+	private final long maxWaitNanos;
+	private final LongSupplier clock;
+
+	/**
+	 * Room for 64 orders, and no order waits more than a second behind
+	 * newer ones.
+	 */
+	public PriorityOrderBoard() {
+		this(64, Duration.ofSeconds(1));
+	}
+
+	/**
+	 * @param capacity How many orders the board can hold
+	 * @param maxWait How long an ordinary order can be passed by newer,
+	 *                more urgent ones
+	 */
+	public PriorityOrderBoard(int capacity, Duration maxWait) {
+		this(capacity, maxWait, System::nanoTime);
+	}
+
+	PriorityOrderBoard(int capacity, Duration maxWait, LongSupplier clock) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Bad capacity: " + capacity);
+		}
+		if (maxWait.isNegative() || maxWait.isZero()) {
+			throw new IllegalArgumentException("Bad maxWait: " + maxWait);
+		}
+		this.places = new Semaphore(capacity);
+		this.maxWaitNanos = maxWait.toNanos();
+		this.clock = clock;
+	}
+
+	public void postOrder(Order toBeProcessed) {
+		try {
+			places.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		orders.put(new Key(effectiveDeadline(toBeProcessed), sequence.getAndIncrement()), toBeProcessed);
+		waiting.release();
+	}
+
+	public Order cookOrder() {
+		try {
+			waiting.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		return take();
+	}
+
+	/**
+	 * Wait for one order, then take the most urgent of the rest, up to max.
+	 */
+	public int cookOrders(int max, Collection<? super Order> sink) {
+		if (max < 1) {
+			throw new IllegalArgumentException("max must be at least 1: " + max);
+		}
+		Order first = cookOrder();
+		if (first == null) {
+			return 0;
+		}
+		sink.add(first);
+		int taken = 1;
+		while (taken < max && waiting.tryAcquire()) {
+			sink.add(take());
+			taken++;
+		}
+		return taken;
+	}
+
+	/**
+	 * How many orders are on the board.
+	 */
+	public int size() {
+		return waiting.availablePermits();
+	}
+
+	/**
+	 * When the order would be due if it were posted now.
+	 */
+	long effectiveDeadline(Order order) {
+		long slack = maxWaitNanos >> Math.min(order.getPriority(), MAX_PRIORITY_SHIFT);
+		long aged = clock.getAsLong() + slack;
+		long deadline = order.getDeadline();
+		return deadline == Order.NO_DEADLINE || deadline - aged > 0 ? aged : deadline;
+	}
+
+	/**
+	 * Take the first order.  We hold a permit from waiting, and every put
+	 * finishes before its permit is released, so there is one.
+	 */
+	private Order take() {
+		Map.Entry<Key, Order> first = orders.pollFirstEntry();
+		places.release();
+		return first.getValue();
+	}
+
+	private static final class Key implements Comparable<Key> {
+		private final long deadline;
+		private final long sequence;
+
+		private Key(long deadline, long sequence) {
+			this.deadline = deadline;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(Key other) {
+			//Compare nanoTimes by their difference, in case they wrap.
+			long diff = deadline - other.deadline;
+			if (diff != 0) {
+				return diff < 0 ? -1 : 1;
+			}
+			return Long.compare(sequence, other.sequence);
+		}
+	}
+}
@@ -0,0 +1,426 @@
+package ttl.advjava.threads.prodcon;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An OrderBoard with no lock on the way in or out.
+ *
+ * The orders live in a pre-allocated array whose size is a power of 2, so
+ * the slot for a sequence number is just (sequence & mask).  Each slot
+ * has its own sequence number, which says whether it is ready to be
+ * written (by a Waiter) or read (by a Cook) - this is Dmitry Vyukov's
+ * bounded queue.  Nobody ever moves an order, nobody ever waits for a
+ * lock to post or cook one, and a Waiter and a Cook only touch the same
+ * memory when they use the same slot.
+ *
+ * The head and tail counters are padded out to their own cache lines, so
+ * Waiters and Cooks don't slow each other down by false sharing.  With a
+ * single Waiter (or a single Cook) the counter on that side is just
+ * written, not CAS'ed.
+ *
+ * What a thread does while the board is full (or empty) is up to the
+ * WaitStrategy.
+ *
+ * If a thread is interrupted while it waits, postOrder gives up (the
+ * order is not posted) and cookOrder returns null, with the interrupt
+ * flag left set.
+ *
+ * @author developintelligence llc
+ * @version 1.0
+ */
+public class RingBufferOrderBoard implements OrderBoard {
+
+	public enum WaitStrategy {
+		/**
+		 * Spin on the CPU.  The lowest latency, but it burns a core per
+		 * waiting thread, so only use it with fewer threads than cores.
+		 */
+		BUSY_SPIN,
+		/**
+		 * Spin a little, then Thread.yield() between tries.
+		 */
+		YIELD,
+		/**
+		 * Spin a little, then park for a short time between tries.  Easy on
+		 * the CPU, at the cost of a little latency.
+		 */
+		PARK,
+		/**
+		 * Spin a little, then block on a Condition until signalled.  Posting
+		 * and cooking only take the lock if somebody is actually blocked.
+		 */
+		BLOCK
+	}
+
+	private static final int SPINS = 100;
+	private static final long PARK_NANOS = 10_000;
+	//Slot sequences are spread out so that neighbouring slots don't share a cache line.
+	private static final int STRIDE = 8;
+
+	private final Order[] orders;
+	private final AtomicLongArray slotSequences;
+	private final int mask;
+	private final boolean singleWaiter;
+	private final boolean singleCook;
+	private final WaitStrategy waitStrategy;
+
+	private final Sequence tail = new Sequence();
+	private final Sequence head = new Sequence();
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition notFull = lock.newCondition();
+	private final Condition notEmpty = lock.newCondition();
+	private volatile int blockedWaiters;
+	private volatile int blockedCooks;
+
+	/**
+	 * Room for 8 orders, any number of Waiters and Cooks, parking while waiting.
+	 */
+	public RingBufferOrderBoard() {
+		this(8, false, false, WaitStrategy.PARK);
+	}
+
+	/**
+	 * @param capacity How many orders the board can hold, rounded up to a power of 2
+	 * @param singleWaiter true if only one thread will ever call postOrder
+	 * @param singleCook true if only one thread will ever call cookOrder
+	 * @param waitStrategy What to do while the board is full or empty
+	 */
+	public RingBufferOrderBoard(int capacity, boolean singleWaiter, boolean singleCook, WaitStrategy waitStrategy) {
+		if (capacity < 1 || capacity > (1 << 24)) {
+			throw new IllegalArgumentException("Bad capacity: " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		orders = new Order[size];
+		slotSequences = new AtomicLongArray(size * STRIDE);
+		for (int i = 0; i < size; i++) {
+			slotSequences.set(i * STRIDE, i);
+		}
+		mask = size - 1;
+		this.singleWaiter = singleWaiter;
+		this.singleCook = singleCook;
+		this.waitStrategy = waitStrategy;
+	}
+
+	public int capacity() {
+		return orders.length;
+	}
+
+	public void postOrder(Order toBeProcessed) {
+		for (int tries = 0; ; tries++) {
+			if (tryPost(toBeProcessed)) {
+				if (blockedCooks > 0) {
+					signal(notEmpty);
+				}
+				return;
+			}
+			if (!idle(tries, false)) {
+				return;
+			}
+		}
+	}
+
+	public Order cookOrder() {
+		for (int tries = 0; ; tries++) {
+			Order order = tryCook();
+			if (order != null) {
+				if (blockedWaiters > 0) {
+					signal(notFull);
+				}
+				return order;
+			}
+			if (!idle(tries, true)) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Post the orders, claiming all the free slots we can use with a
+	 * single CAS each time round.
+	 */
+	public void postOrders(Collection<Order> toBeProcessed) {
+		Iterator<Order> it = toBeProcessed.iterator();
+		int remaining = toBeProcessed.size();
+		for (int tries = 0; remaining > 0; tries++) {
+			int posted = tryPost(it, remaining);
+			if (posted > 0) {
+				remaining -= posted;
+				tries = 0;
+				if (blockedCooks > 0) {
+					signal(notEmpty);
+				}
+			} else if (!idle(tries, false)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Wait for at least one order, then take all the ready ones (up to
+	 * max) with a single CAS.
+	 */
+	public int cookOrders(int max, Collection<? super Order> sink) {
+		if (max < 1) {
+			throw new IllegalArgumentException("max must be at least 1: " + max);
+		}
+		for (int tries = 0; ; tries++) {
+			int taken = tryCook(max, sink);
+			if (taken > 0) {
+				if (blockedWaiters > 0) {
+					signal(notFull);
+				}
+				return taken;
+			}
+			if (!idle(tries, true)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Post up to max orders from the iterator, as many as there are free
+	 * slots for.
+	 * @return how many were posted, 0 if the board is full
+	 */
+	int tryPost(Iterator<Order> it, int max) {
+		int most = Math.min(max, orders.length);
+		for (;;) {
+			long pos = tail.get();
+			int free = 0;
+			while (free < most && sequenceAt(pos + free) == pos + free) {
+				free++;
+			}
+			if (free == 0) {
+				if (sequenceAt(pos) - pos < 0) {
+					return 0;
+				}
+				continue;
+			}
+			if (claim(tail, pos, free, singleWaiter)) {
+				for (int i = 0; i < free; i++) {
+					int slot = (int) ((pos + i) & mask);
+					orders[slot] = it.next();
+					publish(slot, pos + i + 1);
+				}
+				return free;
+			}
+		}
+	}
+
+	/**
+	 * Take up to max orders, as many as are ready.
+	 * @return how many were taken, 0 if the board is empty
+	 */
+	int tryCook(int max, Collection<? super Order> sink) {
+		int most = Math.min(max, orders.length);
+		for (;;) {
+			long pos = head.get();
+			int ready = 0;
+			while (ready < most && sequenceAt(pos + ready) == pos + ready + 1) {
+				ready++;
+			}
+			if (ready == 0) {
+				if (sequenceAt(pos) - (pos + 1) < 0) {
+					return 0;
+				}
+				continue;
+			}
+			if (claim(head, pos, ready, singleCook)) {
+				for (int i = 0; i < ready; i++) {
+					int slot = (int) ((pos + i) & mask);
+					sink.add(orders[slot]);
+					orders[slot] = null;
+					publish(slot, pos + i + orders.length);
+				}
+				return ready;
+			}
+		}
+	}
+
+	private long sequenceAt(long pos) {
+		return slotSequences.get((int) (pos & mask) * STRIDE);
+	}
+
+	/**
+	 * Post the order if there is room.
+	 * @return false if the board is full
+	 */
+	boolean tryPost(Order order) {
+		for (;;) {
+			long pos = tail.get();
+			int slot = (int) (pos & mask);
+			long diff = slotSequences.get(slot * STRIDE) - pos;
+			if (diff < 0) {
+				return false;
+			}
+			if (diff == 0 && claim(tail, pos, 1, singleWaiter)) {
+				orders[slot] = order;
+				publish(slot, pos + 1);
+				return true;
+			}
+			//Another Waiter got there first.  Go again.
+		}
+	}
+
+	/**
+	 * Take an order if there is one.
+	 * @return null if the board is empty
+	 */
+	Order tryCook() {
+		for (;;) {
+			long pos = head.get();
+			int slot = (int) (pos & mask);
+			long diff = slotSequences.get(slot * STRIDE) - (pos + 1);
+			if (diff < 0) {
+				return null;
+			}
+			if (diff == 0 && claim(head, pos, 1, singleCook)) {
+				Order order = orders[slot];
+				orders[slot] = null;
+				publish(slot, pos + orders.length);
+				return order;
+			}
+		}
+	}
+
+	private static boolean claim(Sequence sequence, long pos, int count, boolean single) {
+		if (single) {
+			sequence.set(pos + count);
+			return true;
+		}
+		return sequence.compareAndSet(pos, pos + count);
+	}
+
+	private void publish(int slot, long value) {
+		if (waitStrategy == WaitStrategy.BLOCK) {
+			//A full fence, so the check of blockedCooks/blockedWaiters that
+			//follows can't be reordered before it.  See block().
+			slotSequences.set(slot * STRIDE, value);
+		} else {
+			slotSequences.lazySet(slot * STRIDE, value);
+		}
+	}
+
+	/**
+	 * Wait a little before the next try.
+	 * @return false if we were interrupted
+	 */
+	private boolean idle(int tries, boolean cook) {
+		if (Thread.currentThread().isInterrupted()) {
+			return false;
+		}
+		if (waitStrategy == WaitStrategy.BUSY_SPIN || tries < SPINS) {
+			Thread.onSpinWait();
+			return true;
+		}
+		switch (waitStrategy) {
+		case YIELD:
+			Thread.yield();
+			return true;
+		case PARK:
+			LockSupport.parkNanos(this, PARK_NANOS);
+			return true;
+		default:
+			return block(cook);
+		}
+	}
+
+	/**
+	 * Sleep on the Condition until the other side signals.  We say we are
+	 * blocked before the last look at the board, and the other side makes
+	 * its change before it looks to see if anyone is blocked, so one of us
+	 * always sees the other.  The timeout is just a safety net.
+	 */
+	private boolean block(boolean cook) {
+		lock.lock();
+		try {
+			if (cook) {
+				blockedCooks++;
+				try {
+					if (isEmpty()) {
+						notEmpty.await(1, TimeUnit.MILLISECONDS);
+					}
+				} finally {
+					blockedCooks--;
+				}
+			} else {
+				blockedWaiters++;
+				try {
+					if (isFull()) {
+						notFull.await(1, TimeUnit.MILLISECONDS);
+					}
+				} finally {
+					blockedWaiters--;
+				}
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void signal(Condition condition) {
+		lock.lock();
+		try {
+			condition.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean isEmpty() {
+		long pos = head.get();
+		return slotSequences.get((int) (pos & mask) * STRIDE) - (pos + 1) < 0;
+	}
+
+	private boolean isFull() {
+		long pos = tail.get();
+		return slotSequences.get((int) (pos & mask) * STRIDE) - pos < 0;
+	}
+
+	/**
+	 * A counter with a cache line to itself.  The padding fields are
+	 * split over superclasses because the JVM may reorder fields within
+	 * a class, but keeps a superclass's fields before a subclass's.
+	 */
+	static class LeftPadding {
+		long p01, p02, p03, p04, p05, p06, p07;
+	}
+
+	static class Value extends LeftPadding {
+		volatile long value;
+	}
+
+	static final class Sequence extends Value {
+		private static final AtomicLongFieldUpdater<Value> UPDATER =
+				AtomicLongFieldUpdater.newUpdater(Value.class, "value");
+
+		long p11, p12, p13, p14, p15, p16, p17;
+
+		long get() {
+			return value;
+		}
+
+		void set(long newValue) {
+			value = newValue;
+		}
+
+		boolean compareAndSet(long expected, long newValue) {
+			return UPDATER.compareAndSet(this, expected, newValue);
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package ttl.advjava.threads.prodcon;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time-to-cook for rush and ordinary orders, on a FIFO board and on a
+ * PriorityOrderBoard.
+ *
+ * A waiter posts orders in bursts, faster than the cook can cook them.
+ * A burst starts every PERIOD_NANOS, twice as long as it takes to cook
+ * one, so on average the cook is busy half the time.  Each board gets one run to
+ * warm up before the one that is measured.  One order in ten is a rush
+ * order (priority 3).  The time-to-cook of an order is from just before
+ * it is posted to when the cook takes it off the board.  On the FIFO
+ * board a rush order waits behind the whole burst; on the priority
+ * board it goes to the front, and the ordinary orders pay a little for
+ * it.
+ *
+ * @author developintelligence llc
+ * @version 1.0
+ */
+public class RushHour {
+
+  private static final int BURSTS = 200;
+  private static final int BURST_SIZE = 50;
+  private static final int RUSH_EVERY = 10;
+  private static final long COOK_NANOS = 20_000;
+  private static final long PERIOD_NANOS = 2 * BURST_SIZE * COOK_NANOS;
+  private static final int CAPACITY = 1024;
+
+  public static void main(String[] args) throws InterruptedException {
+    for(int round = 0; round < 2; round++) {
+      boolean print = round == 1;
+      run("FIFO", new BlockingQueueOrderBoard(CAPACITY), print);
+      run("priority", new PriorityOrderBoard(CAPACITY, Duration.ofMillis(50)), print);
+    }
+  }
+
+  private static void run(String name, OrderBoard board, boolean print) throws InterruptedException {
+    int total = BURSTS * BURST_SIZE;
+    Order[] orders = new Order[total];
+    Map<Order, Integer> index = new IdentityHashMap<>();
+    for(int i = 0; i < total; i++) {
+      orders[i] = new Order(MenuItem.of(i % MenuItem.count()));
+      if(i % RUSH_EVERY == 0) {
+        orders[i].setPriority(3);
+      }
+      index.put(orders[i], i);
+    }
+    long[] postedAt = new long[total];
+    long[] waited = new long[total];
+
+    Thread waiter = new Thread(() -> {
+      long next = System.nanoTime();
+      for(int b = 0; b < BURSTS; b++) {
+        for(int i = b * BURST_SIZE; i < (b + 1) * BURST_SIZE; i++) {
+          postedAt[i] = System.nanoTime();
+          board.postOrder(orders[i]);
+        }
+        //From the start of this burst, not the end of it, so the time it
+        //takes to post does not stretch the period.
+        next += PERIOD_NANOS;
+        LockSupport.parkNanos(next - System.nanoTime());
+      }
+    });
+    Thread cook = new Thread(() -> {
+      for(int n = 0; n < total; n++) {
+        Order order = board.cookOrder();
+        int i = index.get(order);
+        waited[i] = System.nanoTime() - postedAt[i];
+        //cooking time
+        long done = System.nanoTime() + COOK_NANOS;
+        while(System.nanoTime() < done) {
+          Thread.onSpinWait();
+        }
+      }
+    });
+    cook.start();
+    waiter.start();
+    waiter.join();
+    cook.join();
+
+    if(!print) {
+      return;
+    }
+    long[] rush = new long[total / RUSH_EVERY];
+    long[] ordinary = new long[total - rush.length];
+    for(int i = 0, r = 0, o = 0; i < total; i++) {
+      if(i % RUSH_EVERY == 0) {
+        rush[r++] = waited[i];
+      } else {
+        ordinary[o++] = waited[i];
+      }
+    }
+    System.out.printf("%-8s rush:     %s%n", name, percentiles(rush));
+    System.out.printf("%-8s ordinary: %s%n", name, percentiles(ordinary));
+  }
+
+  private static String percentiles(long[] nanos) {
+    Arrays.sort(nanos);
+    return String.format("p50 %6d us, p99 %6d us, max %6d us",
+                         nanos[nanos.length / 2] / 1000,
+                         nanos[nanos.length * 99 / 100] / 1000,
+                         nanos[nanos.length - 1] / 1000);
+  }
+}
@@ -2,22 +2,39 @@ package ttl.advjava.threads.prodcon;
 
 /**
  * The application that starts the waiter
- * and the cook.
+ * and the cooks.  Each cook has its own
+ * station in the Kitchen, and the Orders
+ * are recycled through an OrderPool.
+ * Orders are not printed one by one, since
+ * that would make garbage for every Order;
+ * the pool's counts are printed instead.
  *
  * @author developintelligence llc
  * @version 1.0
  */
 public class TheBurgerJoint {
 
-  public static void main(String[] args) {
+  private static final int COOKS = 3;
+
+  public static void main(String[] args) throws InterruptedException {
     //OrderBoard orders = new BlockingQueueOrderBoard();
-    OrderBoard orders = new LockOrderBoard();
+    //OrderBoard orders = new LockOrderBoard();
+    Kitchen orders = new Kitchen(COOKS, Kitchen.Placement.ROUND_ROBIN);
+    OrderPool pool = new OrderPool();
 
-    Runnable cook = new Cook(orders);
-    Runnable waiter1 = new Waiter(orders);
+    Runnable waiter1 = new Waiter(orders, 1, pool, false);
     Thread producer = new Thread(waiter1);
-    Thread consumer = new Thread(cook);
-    consumer.start();
+    for(int i = 0; i < COOKS; i++) {
+      Runnable cook = new Cook(orders.station(i), 1, pool, false);
+      Thread consumer = new Thread(cook);
+      consumer.start();
+    }
     producer.start();
+
+    while(true) {
+      Thread.sleep(5000);
+      System.out.printf("Orders made: %d, reused: %d, dropped: %d\n",
+                        pool.created(), pool.recycled(), pool.dropped());
+    }
   }
 }
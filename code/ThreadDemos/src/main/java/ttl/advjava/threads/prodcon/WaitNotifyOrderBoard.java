@@ -1,6 +1,8 @@
 package ttl.advjava.threads.prodcon;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -70,6 +72,62 @@ public class WaitNotifyOrderBoard implements OrderBoard {
 
     return tmpOrder;
   }
+
+  /**
+   * add orders to the board, as many at a time
+   * as there is room for.
+   * @param toBeProcessed
+   */
+  @Override
+  public void postOrders(Collection<Order> toBeProcessed) {
+    Iterator<Order> it = toBeProcessed.iterator();
+    synchronized(orders) {
+      while(it.hasNext()) {
+        while(orders.size() == 5) {
+          try {
+            orders.wait();
+          } catch (InterruptedException e) {
+            e.printStackTrace();
+          }
+        }
+
+        while(orders.size() < 5 && it.hasNext()) {
+          orders.add(it.next());
+        }
+
+        orders.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * take all the orders on the board (up to max)
+   * in one go.
+   *
+   * @return how many were taken
+   */
+  @Override
+  public int cookOrders(int max, Collection<? super Order> sink) {
+    if(max < 1) {
+      throw new IllegalArgumentException("max must be at least 1: " + max);
+    }
+    synchronized(orders) {
+      while(orders.isEmpty()) {
+        try {
+          orders.wait();
+        } catch (InterruptedException e) {
+          e.printStackTrace();
+        }
+      }
+
+      List<Order> batch = orders.subList(0, Math.min(max, orders.size()));
+      int taken = batch.size();
+      sink.addAll(batch);
+      batch.clear();
+      orders.notifyAll();
+      return taken;
+    }
+  }
 }
 
 
@@ -1,32 +1,93 @@
 package ttl.advjava.threads.prodcon;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * A waiter creates orders and
  * adds them to the SemaphoreOrderBoard.
  *
+ * In batch mode the waiter writes up
+ * a batch of orders and posts them
+ * all together.
+ *
  * @author developintelligence llc
  * @version 1.0
  */
 public class Waiter implements Runnable {
 
   private OrderBoard ordersToServe;
+  private final int batchSize;
+  private final OrderPool pool;
+  private final boolean announce;
 
   public Waiter(OrderBoard orders) {
+    this(orders, 1);
+  }
+
+  public Waiter(OrderBoard orders, int batchSize) {
+    this(orders, batchSize, null);
+  }
+
+  /**
+   * Take Orders from the pool instead of making new ones.
+   * The Cooks must give them back to the same pool.
+   */
+  public Waiter(OrderBoard orders, int batchSize, OrderPool pool) {
+    this(orders, batchSize, pool, true);
+  }
+
+  /**
+   * @param announce Print each Order as it is posted.  Printing boxes
+   *                 and formats, so it makes garbage for every Order.
+   */
+  public Waiter(OrderBoard orders, int batchSize, OrderPool pool, boolean announce) {
     ordersToServe = orders;
+    this.batchSize = batchSize;
+    this.pool = pool;
+    this.announce = announce;
   }
 
   public void run() {
+    if(batchSize > 1) {
+      runBatches();
+      return;
+    }
     while(true) {
-      Order newOrder = new Order();
-      if(newOrder.getOrderNumber() % 2 == 0) {
-        newOrder.setMenuItem("Hamburger");
-      } else {
-        newOrder.setMenuItem("Cheeseburger");
-      }
+      Order newOrder = takeOrder();
 
       ordersToServe.postOrder(newOrder);
-      System.out.printf("Order IN [%d]: %s\n",
-                        newOrder.getOrderNumber(), newOrder.getMenuItem());
+      if(announce) {
+        announce(newOrder);
+      }
     }
   }
+
+  private void runBatches() {
+    List<Order> batch = new ArrayList<>(batchSize);
+    while(true) {
+      batch.clear();
+      for(int i = 0; i < batchSize; i++) {
+        batch.add(takeOrder());
+      }
+
+      ordersToServe.postOrders(batch);
+      if(announce) {
+        for(int i = 0; i < batch.size(); i++) {
+          announce(batch.get(i));
+        }
+      }
+    }
+  }
+
+  private void announce(Order newOrder) {
+    System.out.printf("Order IN [%d]: %s\n",
+                      newOrder.getOrderNumber(), newOrder.getMenuItem());
+  }
+
+  private Order takeOrder() {
+    Order newOrder = pool != null ? pool.acquire() : new Order();
+    newOrder.setMenuItem(MenuItem.of(newOrder.getOrderNumber() % MenuItem.count()));
+    return newOrder;
+  }
 }
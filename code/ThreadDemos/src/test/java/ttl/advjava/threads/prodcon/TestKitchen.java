@@ -0,0 +1,87 @@
+package ttl.advjava.threads.prodcon;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author developintelligence llc
+ */
+public class TestKitchen {
+
+	@Test
+	public void testIdleCookStealsTheOldestOrder() {
+		Kitchen kitchen = new Kitchen(2, Kitchen.Placement.ROUND_ROBIN);
+		Order first = new Order();
+		Order second = new Order();
+		kitchen.station(0).postOrder(first);
+		kitchen.station(0).postOrder(second);
+
+		assertSame(first, kitchen.station(1).cookOrder());
+		assertSame(second, kitchen.station(0).cookOrder());
+		assertEquals(1, kitchen.steals());
+	}
+
+	/**
+	 * Cooks without a station, waiting at the same one, all get woken.
+	 */
+	@Test
+	public void testRoamingCooksAllGetOrders() throws Exception {
+		Kitchen kitchen = new Kitchen(1, Kitchen.Placement.ROUND_ROBIN);
+		ExecutorService pool = Executors.newFixedThreadPool(3);
+		try {
+			List<Future<Order>> cooked = new ArrayList<>();
+			for (int c = 0; c < 3; c++) {
+				cooked.add(pool.submit(() -> kitchen.cookOrder()));
+			}
+			Set<Order> posted = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (int i = 0; i < 3; i++) {
+				Order order = new Order();
+				posted.add(order);
+				kitchen.postOrder(order);
+			}
+			for (Future<Order> f : cooked) {
+				assertTrue(posted.remove(f.get(10, TimeUnit.SECONDS)));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testFullStationOverflowsToTheNext() {
+		Kitchen kitchen = new Kitchen(2, 1, Kitchen.Placement.ROUND_ROBIN);
+		kitchen.station(0).postOrder(new Order());
+		kitchen.station(0).postOrder(new Order());
+		assertEquals(1, kitchen.waiting(0));
+		assertEquals(1, kitchen.waiting(1));
+	}
+
+	@Test
+	public void testLeastLoadedPicksTheShortestQueue() {
+		Kitchen kitchen = new Kitchen(3, Kitchen.Placement.LEAST_LOADED);
+		kitchen.station(0).postOrder(new Order());
+		kitchen.station(0).postOrder(new Order());
+		kitchen.station(2).postOrder(new Order());
+
+		kitchen.postOrder(new Order());
+		assertEquals(1, kitchen.waiting(1));
+		kitchen.postOrder(new Order());
+		kitchen.postOrder(new Order());
+		assertEquals(2, kitchen.waiting(0));
+		assertEquals(2, kitchen.waiting(1));
+		assertEquals(2, kitchen.waiting(2));
+	}
+}
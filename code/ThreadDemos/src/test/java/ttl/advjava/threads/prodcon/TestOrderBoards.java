@@ -0,0 +1,186 @@
+package ttl.advjava.threads.prodcon;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * What every OrderBoard has to do: from several Waiters to several
+ * Cooks, one at a time or in batches bigger than the board (and
+ * smaller), every order gets cooked exactly once.  The tests for each
+ * board cover what is special about it.
+ *
+ * @author developintelligence llc
+ */
+public class TestOrderBoards {
+
+	private static final int ORDERS = 7 * 3 * 1000;
+
+	@ParameterizedTest
+	@ValueSource(strings = {"lock", "waitNotify", "blockingQueue", "ring", "kitchen-rr", "kitchen-least", "priority"})
+	public void testEveryOrderCookedOnce(String kind) throws Exception {
+		cookAll(board(kind), 2, 3);
+	}
+
+	/**
+	 * waiters Waiters post ORDERS orders one at a time, and cooks Cooks
+	 * (each at its own station, on a Kitchen) cook them: every one
+	 * exactly once.  The tests for particular boards use this too.
+	 */
+	static void cookAll(OrderBoard board, int waiters, int cooks) throws Exception {
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < ORDERS; i++) {
+			orders.add(new Order());
+		}
+		Set<Order> cooked = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+		ExecutorService pool = Executors.newFixedThreadPool(waiters + cooks);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int w = 0; w < waiters; w++) {
+				List<Order> mine = orders.subList(w * ORDERS / waiters, (w + 1) * ORDERS / waiters);
+				futures.add(pool.submit(() -> mine.forEach(board::postOrder)));
+			}
+			for (int c = 0; c < cooks; c++) {
+				OrderBoard mine = cookBoard(board, c);
+				int share = (c + 1) * ORDERS / cooks - c * ORDERS / cooks;
+				futures.add(pool.submit(() -> {
+					for (int i = 0; i < share; i++) {
+						assertTrue(cooked.add(mine.cookOrder()));
+					}
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		assertEquals(ORDERS, cooked.size());
+	}
+
+	/**
+	 * The boards that give up when interrupted (the older ones just print
+	 * the stack trace).
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"ring-park", "ring-block", "kitchen-rr", "priority"})
+	public void testInterruptedCookGetsNull(String kind) {
+		OrderBoard board = board(kind);
+		Thread.currentThread().interrupt();
+		try {
+			assertNull(cookBoard(board, 0).cookOrder());
+			assertTrue(Thread.currentThread().isInterrupted());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"lock", "waitNotify", "blockingQueue", "ring", "kitchen-rr", "priority"})
+	public void testBatches(String kind) throws Exception {
+		OrderBoard board = board(kind);
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < ORDERS; i++) {
+			orders.add(new Order());
+		}
+		Set<Order> cooked = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int w = 0; w < 2; w++) {
+				List<Order> mine = orders.subList(w * ORDERS / 2, (w + 1) * ORDERS / 2);
+				futures.add(pool.submit(() -> {
+					for (int i = 0; i < mine.size(); i += 7) {
+						board.postOrders(mine.subList(i, Math.min(i + 7, mine.size())));
+					}
+				}));
+			}
+			for (int c = 0; c < 2; c++) {
+				futures.add(pool.submit(() -> {
+					List<Order> batch = new ArrayList<>();
+					for (int done = 0; done < ORDERS / 2; ) {
+						batch.clear();
+						int taken = board.cookOrders(Math.min(3, ORDERS / 2 - done), batch);
+						assertEquals(taken, batch.size());
+						assertTrue(taken >= 1 && taken <= 3);
+						for (Order order : batch) {
+							assertTrue(cooked.add(order));
+						}
+						done += taken;
+					}
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		assertEquals(ORDERS, cooked.size());
+	}
+
+	/**
+	 * A batch of nothing is a mistake, so every board refuses it before
+	 * it waits, rather than blocking for an order it then can't take.
+	 */
+	@ParameterizedTest
+	@ValueSource(strings = {"lock", "waitNotify", "blockingQueue", "ring", "kitchen-rr", "priority"})
+	public void testBatchOfLessThanOneIsRefused(String kind) {
+		OrderBoard board = board(kind);
+		List<Order> batch = new ArrayList<>();
+		assertThrows(IllegalArgumentException.class, () -> cookBoard(board, 0).cookOrders(0, batch));
+		assertThrows(IllegalArgumentException.class, () -> cookBoard(board, 0).cookOrders(-1, batch));
+		assertTrue(batch.isEmpty());
+	}
+
+	private static OrderBoard board(String kind) {
+		switch (kind) {
+		case "lock":
+			return new LockOrderBoard();
+		case "waitNotify":
+			return new WaitNotifyOrderBoard();
+		case "blockingQueue":
+			return new BlockingQueueOrderBoard();
+		case "ring":
+		case "ring-park":
+			return new RingBufferOrderBoard(8, false, false, RingBufferOrderBoard.WaitStrategy.PARK);
+		case "ring-block":
+			return new RingBufferOrderBoard(8, false, false, RingBufferOrderBoard.WaitStrategy.BLOCK);
+		case "kitchen-rr":
+			return new Kitchen(3, Kitchen.Placement.ROUND_ROBIN);
+		case "kitchen-least":
+			return new Kitchen(3, Kitchen.Placement.LEAST_LOADED);
+		case "priority":
+			return new PriorityOrderBoard(16, Duration.ofMillis(1));
+		default:
+			throw new IllegalArgumentException("Unknown board: " + kind);
+		}
+	}
+
+	/**
+	 * What Cook c works from: its own station in a Kitchen, or else the
+	 * board itself.
+	 */
+	private static OrderBoard cookBoard(OrderBoard board, int c) {
+		if (board instanceof Kitchen) {
+			Kitchen kitchen = (Kitchen) board;
+			return kitchen.station(c % kitchen.stations());
+		}
+		return board;
+	}
+}
@@ -0,0 +1,138 @@
+package ttl.advjava.threads.prodcon;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author developintelligence llc
+ */
+public class TestOrderPool {
+
+	@Test
+	public void testTabNumbersAreUniqueAcrossWaiters() throws Exception {
+		Set<Integer> tabs = ConcurrentHashMap.newKeySet();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int w = 0; w < 4; w++) {
+				futures.add(pool.submit(() -> {
+					for (int i = 0; i < 50_000; i++) {
+						assertTrue(tabs.add(new Order().getOrderNumber()));
+					}
+				}));
+			}
+			for (Future<?> f : futures) {
+				f.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		assertEquals(200_000, tabs.size());
+	}
+
+	@Test
+	public void testReleasedOrderIsReusedWithANewTab() {
+		OrderPool pool = new OrderPool();
+		Order order = pool.acquire(MenuItem.HAMBURGER);
+		int tab = order.getOrderNumber();
+		pool.release(order);
+
+		Order again = pool.acquire(MenuItem.CHEESEBURGER);
+		assertSame(order, again);
+		assertNotEquals(tab, again.getOrderNumber());
+		assertEquals(MenuItem.CHEESEBURGER, again.getMenuItem());
+		assertEquals(1, pool.created());
+		assertEquals(1, pool.recycled());
+	}
+
+	@Test
+	public void testCookReturnsOrdersToTheWaitersFreeList() throws Exception {
+		OrderPool pool = new OrderPool();
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			orders.add(pool.acquire(MenuItem.HAMBURGER));
+		}
+		Thread cook = new Thread(() -> orders.forEach(pool::release));
+		cook.start();
+		cook.join();
+
+		for (int i = 0; i < 10; i++) {
+			assertTrue(orders.contains(pool.acquire()));
+		}
+		assertEquals(10, pool.created());
+		assertEquals(10, pool.recycled());
+	}
+
+	@Test
+	public void testFullFreeListDrops() {
+		OrderPool pool = new OrderPool(1);
+		Order first = pool.acquire();
+		Order second = pool.acquire();
+		pool.release(first);
+		pool.release(second);
+		assertEquals(1, pool.dropped());
+	}
+
+	@Test
+	public void testReturnsBeyondTheFreeListAreDropped() throws Exception {
+		OrderPool pool = new OrderPool(4);
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			orders.add(pool.acquire());
+		}
+		Thread cook = new Thread(() -> orders.forEach(pool::release));
+		cook.start();
+		cook.join();
+
+		pool.acquire();
+		assertEquals(6, pool.dropped());
+		assertEquals(1, pool.recycled());
+	}
+
+	@Test
+	public void testCooksReturningAtOnceLoseNothing() throws Exception {
+		OrderPool pool = new OrderPool(40_000);
+		List<Order> orders = new ArrayList<>();
+		for (int i = 0; i < 40_000; i++) {
+			orders.add(pool.acquire());
+		}
+		List<Thread> cooks = new ArrayList<>();
+		for (int c = 0; c < 4; c++) {
+			List<Order> mine = orders.subList(c * 10_000, (c + 1) * 10_000);
+			cooks.add(new Thread(() -> mine.forEach(pool::release)));
+		}
+		cooks.forEach(Thread::start);
+		for (Thread cook : cooks) {
+			cook.join();
+		}
+
+		Set<Order> reused = ConcurrentHashMap.newKeySet();
+		for (int i = 0; i < 40_000; i++) {
+			assertTrue(reused.add(pool.acquire()));
+		}
+		assertEquals(40_000, pool.created());
+		assertEquals(40_000, pool.recycled());
+		assertEquals(0, pool.dropped());
+	}
+
+	@Test
+	public void testOrderFromAnotherPoolIsRejected() {
+		OrderPool pool = new OrderPool();
+		assertThrows(IllegalArgumentException.class, () -> pool.release(new Order()));
+		assertThrows(IllegalArgumentException.class, () -> pool.release(new OrderPool().acquire()));
+	}
+}
@@ -0,0 +1,109 @@
+package ttl.advjava.threads.prodcon;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author developintelligence llc
+ */
+public class TestPriorityOrderBoard {
+
+	private final AtomicLong now = new AtomicLong();
+
+	private PriorityOrderBoard board(int capacity) {
+		//maxWait is 1000 nanos of the fake clock.
+		return new PriorityOrderBoard(capacity, Duration.ofNanos(1000), now::get);
+	}
+
+	@Test
+	public void testRushOrderJumpsTheQueue() {
+		PriorityOrderBoard board = board(8);
+		Order first = new Order();
+		Order second = new Order();
+		Order rush = new Order();
+		rush.setPriority(2);
+		board.postOrder(first);
+		board.postOrder(second);
+		now.set(10);
+		board.postOrder(rush);
+
+		assertSame(rush, board.cookOrder());
+		assertSame(first, board.cookOrder());
+		assertSame(second, board.cookOrder());
+	}
+
+	@Test
+	public void testEarliestDeadlineFirst() {
+		PriorityOrderBoard board = board(8);
+		Order late = new Order();
+		late.setDeadline(500);
+		Order soon = new Order();
+		soon.setDeadline(100);
+		Order none = new Order();
+		board.postOrder(none);
+		board.postOrder(late);
+		board.postOrder(soon);
+
+		assertSame(soon, board.cookOrder());
+		assertSame(late, board.cookOrder());
+		assertSame(none, board.cookOrder());
+	}
+
+	@Test
+	public void testOldOrdersAreNotStarved() {
+		PriorityOrderBoard board = board(8);
+		Order old = new Order();
+		board.postOrder(old);
+		//Posted more than maxWait later, so due after the old one, even
+		//at the highest priority.
+		now.set(1001);
+		Order rush = new Order();
+		rush.setPriority(30);
+		board.postOrder(rush);
+
+		assertSame(old, board.cookOrder());
+		assertSame(rush, board.cookOrder());
+	}
+
+	@Test
+	public void testFullBoardMakesTheWaiterWait() throws Exception {
+		PriorityOrderBoard board = board(2);
+		board.postOrder(new Order());
+		board.postOrder(new Order());
+		Thread waiter = new Thread(() -> board.postOrder(new Order()));
+		waiter.start();
+		waiter.join(100);
+		assertTrue(waiter.isAlive());
+		assertEquals(2, board.size());
+
+		board.cookOrder();
+		waiter.join(10_000);
+		assertFalse(waiter.isAlive());
+		assertEquals(2, board.size());
+	}
+
+	@Test
+	public void testCookOrdersTakesTheMostUrgent() {
+		PriorityOrderBoard board = board(8);
+		for (int i = 0; i < 4; i++) {
+			board.postOrder(new Order());
+		}
+		Order rush = new Order();
+		rush.setPriority(1);
+		board.postOrder(rush);
+
+		List<Order> batch = new ArrayList<>();
+		assertEquals(3, board.cookOrders(3, batch));
+		assertSame(rush, batch.get(0));
+		assertEquals(2, board.size());
+	}
+}
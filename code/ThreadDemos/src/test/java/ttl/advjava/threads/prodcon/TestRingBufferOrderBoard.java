@@ -0,0 +1,25 @@
+package ttl.advjava.threads.prodcon;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Every order posted gets cooked exactly once, whatever the wait
+ * strategy, with one or many Waiters and Cooks.
+ *
+ * @author developintelligence llc
+ */
+public class TestRingBufferOrderBoard {
+
+	@ParameterizedTest
+	@EnumSource(RingBufferOrderBoard.WaitStrategy.class)
+	public void testOneWaiterOneCook(RingBufferOrderBoard.WaitStrategy strategy) throws Exception {
+		TestOrderBoards.cookAll(new RingBufferOrderBoard(8, true, true, strategy), 1, 1);
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = RingBufferOrderBoard.WaitStrategy.class, names = {"YIELD", "PARK", "BLOCK"})
+	public void testManyWaitersManyCooks(RingBufferOrderBoard.WaitStrategy strategy) throws Exception {
+		TestOrderBoards.cookAll(new RingBufferOrderBoard(8, false, false, strategy), 4, 4);
+	}
+}
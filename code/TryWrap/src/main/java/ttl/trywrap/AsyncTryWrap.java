@@ -0,0 +1,208 @@
+package ttl.trywrap;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * A TryWrap that is not here yet.  AsyncTryWrap wraps a CompletableFuture
+ * of TryWrap that always completes normally - a failure anywhere in the
+ * chain shows up as a left, never as an exceptionally completed future.
+ * So there are no CompletionExceptions to unwrap, and no need for
+ * exceptionally/handle at every step.
+ *
+ *   AsyncTryWrap.of(() -> lookup(id), ioPool)
+ *       .mapAsync(this::enrich, ioPool)
+ *       .flatMapAsync(r -> AsyncTryWrap.of(() -> save(r), ioPool), ioPool)
+ *       .whenDone(tw -> tw.ifPresentOrElseConsume(this::reply, this::fail));
+ *
+ * Nothing here blocks, except join().
+ *
+ * @author whynot
+ */
+public final class AsyncTryWrap<T> {
+
+    private final CompletableFuture<TryWrap<T>> future;
+
+    private AsyncTryWrap(CompletableFuture<TryWrap<T>> future) {
+        this.future = future;
+    }
+
+    /**
+     * Run the supplier on the executor.
+     * @param supplier
+     * @param executor
+     * @param <T>
+     * @return
+     */
+    public static <T> AsyncTryWrap<T> of(MySupplier<T> supplier, Executor executor) {
+        return new AsyncTryWrap<>(settle(CompletableFuture.supplyAsync(() -> TryWrap.of(supplier), executor)));
+    }
+
+    /**
+     * An AsyncTryWrap that is already done.
+     * @param tryWrap
+     * @param <T>
+     * @return
+     */
+    public static <T> AsyncTryWrap<T> completed(TryWrap<T> tryWrap) {
+        return new AsyncTryWrap<>(CompletableFuture.completedFuture(tryWrap));
+    }
+
+    /**
+     * Adapt a CompletableFuture (or any CompletionStage).  Normal
+     * completion gives a right, exceptional completion gives a left with
+     * the real cause - any CompletionException/ExecutionException wrappers
+     * are peeled off.
+     * @param stage
+     * @param <T>
+     * @return
+     */
+    public static <T> AsyncTryWrap<T> fromCompletableFuture(CompletionStage<T> stage) {
+        return new AsyncTryWrap<>(stage.toCompletableFuture()
+                .handle((value, t) -> t == null ? TryWrap.ofRight(value) : TryWrap.ofLeft(unwrap(t))));
+    }
+
+    /**
+     * Wrap a future we made ourselves, and know will complete normally.
+     */
+    static <T> AsyncTryWrap<T> wrap(CompletableFuture<TryWrap<T>> future) {
+        return new AsyncTryWrap<>(settle(future));
+    }
+
+    /**
+     * Map in whichever thread completes us (or the calling thread,
+     * if we are already done).  Use this for cheap functions.
+     * @param function
+     * @param <R>
+     * @return
+     */
+    public <R> AsyncTryWrap<R> map(MyFunction<? super T, ? extends R> function) {
+        return new AsyncTryWrap<>(settle(future.thenApply(tw -> tw.map(function))));
+    }
+
+    /**
+     * Map on the executor.  A left or Empty is passed along without
+     * going through the executor.
+     * @param function
+     * @param executor
+     * @param <R>
+     * @return
+     */
+    public <R> AsyncTryWrap<R> mapAsync(MyFunction<? super T, ? extends R> function, Executor executor) {
+        return new AsyncTryWrap<>(settle(future.thenCompose(tw -> {
+            if (!tw.isRight()) {
+                return CompletableFuture.completedFuture(tw.<R>retype());
+            }
+            return CompletableFuture.supplyAsync(() -> tw.<R>map(function), executor);
+        })));
+    }
+
+    /**
+     * flatMap on the executor, for functions that start async work
+     * of their own.
+     * @param function
+     * @param executor
+     * @param <R>
+     * @return
+     */
+    public <R> AsyncTryWrap<R> flatMapAsync(MyFunction<? super T, AsyncTryWrap<R>> function, Executor executor) {
+        return new AsyncTryWrap<>(settle(future.thenCompose(tw -> {
+            if (!tw.isRight()) {
+                return CompletableFuture.completedFuture(tw.<R>retype());
+            }
+            return CompletableFuture.supplyAsync(() -> tw.map(function), executor)
+                    .thenCompose(mapped -> {
+                        if (!mapped.isRight()) {
+                            return CompletableFuture.completedFuture(mapped.<R>retype());
+                        }
+                        return mapped.right().future;
+                    });
+        })));
+    }
+
+    public AsyncTryWrap<T> filter(MyPredicate<? super T> predicate) {
+        return new AsyncTryWrap<>(settle(future.thenApply(tw -> tw.filter(predicate))));
+    }
+
+    /**
+     * Call the consumer with the TryWrap once we are done.
+     * @param consumer
+     * @return The same outcome once the consumer has run, or a left with
+     * whatever the consumer threw
+     */
+    public AsyncTryWrap<T> whenDone(MyConsumer<TryWrap<T>> consumer) {
+        return new AsyncTryWrap<>(settle(future.thenApply(tw -> {
+            try {
+                consumer.accept(tw);
+                return tw;
+            } catch (Exception e) {
+                return TryWrap.<T>ofLeft(e);
+            }
+        })));
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * Block until done.  Never throws, the outcome is in the TryWrap.
+     * @return
+     */
+    public TryWrap<T> join() {
+        return future.join();
+    }
+
+    /**
+     * The underlying future, which always completes normally.
+     * @return
+     */
+    public CompletableFuture<TryWrap<T>> toFuture() {
+        return future;
+    }
+
+    /**
+     * A CompletableFuture in the usual style: it completes with the right,
+     * or exceptionally with the left (NoSuchElementException for an Empty).
+     * @return
+     */
+    public CompletableFuture<T> toCompletableFuture() {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.thenAccept(tw -> {
+            if (tw.isRight()) {
+                result.complete(tw.right());
+            } else if (tw.isLeft() || tw.isEmpty()) {
+                result.completeExceptionally(TryWrap.materialize(tw.left()));
+            } else {
+                result.complete(null);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Turn an exceptionally completed future back into a left.  Only
+     * an Error thrown from a stage can get us here.
+     */
+    private static <T> CompletableFuture<TryWrap<T>> settle(CompletableFuture<TryWrap<T>> cf) {
+        return cf.handle((tw, t) -> t == null ? tw : TryWrap.ofLeft(unwrap(t)));
+    }
+
+    /**
+     * Peel off the wrappers that CompletableFuture adds.  Anything that is
+     * not an Exception (i.e. an Error) goes back in a CompletionException,
+     * since a left has to be an Exception.
+     */
+    static Exception unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        if (t instanceof Exception) {
+            return (Exception) t;
+        }
+        return new CompletionException(t);
+    }
+}
@@ -0,0 +1,47 @@
+package ttl.trywrap;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Handed to work started by TryWrap.ofWithinCancellable.  The work should
+ * check it every so often and stop when it is cancelled.  This is for code
+ * that can't (or doesn't) respond to interrupts, e.g. a tight loop that
+ * never blocks:
+ *
+ *   TryWrap.ofWithinCancellable(Duration.ofMillis(100), token -> {
+ *       long sum = 0;
+ *       for (int i = 0; i < huge; i++) {
+ *           if ((i & 0xFFFF) == 0) token.throwIfCancelled();
+ *           sum += i;
+ *       }
+ *       return sum;
+ *   });
+ *
+ * Checking is a single volatile read.
+ *
+ * @author whynot
+ */
+public final class CancellationToken {
+
+    private volatile boolean cancelled;
+
+    CancellationToken() {
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException if we have been cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Cancelled");
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+}
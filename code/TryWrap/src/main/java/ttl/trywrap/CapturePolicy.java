@@ -0,0 +1,113 @@
+package ttl.trywrap;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether a TryFailure captures a stack trace.
+ *
+ * Filling in a stack trace is by far the most expensive part of creating
+ * an Exception.  When failures are expected (bad input, validation etc.)
+ * and nobody ever looks at the trace, you can turn it off:
+ *
+ * - FULL: always capture (the default).
+ * - STACKLESS: never capture.
+ * - sampled(n): capture for roughly 1 in n failures, so you still get
+ *   some traces to look at.
+ *
+ * The policy can be set globally with setDefault, or for a single call
+ * with TryWrap.of(policy, supplier), TryWrap.ofRunnable(policy, runnable)
+ * or SoloTry.of(policy, supplier).  A per-call policy applies to every
+ * TryFailure created on the calling thread while the supplier runs.
+ *
+ * Note that the policy only applies to TryFailures.  Any other Exception
+ * has already captured its stack trace by the time TryWrap sees it.
+ *
+ * @author whynot
+ */
+public final class CapturePolicy {
+
+    public static final CapturePolicy FULL = new CapturePolicy(1);
+    public static final CapturePolicy STACKLESS = new CapturePolicy(0);
+
+    private static volatile CapturePolicy defaultPolicy = FULL;
+
+    private static final ThreadLocal<CapturePolicy> perCall = new ThreadLocal<>();
+
+    private final int oneIn;
+
+    private CapturePolicy(int oneIn) {
+        this.oneIn = oneIn;
+    }
+
+    /**
+     * Capture a stack trace for about 1 in oneIn failures.
+     * @param oneIn
+     * @return
+     */
+    public static CapturePolicy sampled(int oneIn) {
+        if (oneIn < 1) {
+            throw new IllegalArgumentException("oneIn must be at least 1: " + oneIn);
+        }
+        return oneIn == 1 ? FULL : new CapturePolicy(oneIn);
+    }
+
+    public static CapturePolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    public static void setDefault(CapturePolicy policy) {
+        if (policy == null) {
+            throw new NullPointerException("policy");
+        }
+        defaultPolicy = policy;
+    }
+
+    /**
+     * The policy in effect on this thread right now.  That is the
+     * per-call policy if we are inside one, else the default.
+     * @return
+     */
+    public static CapturePolicy current() {
+        CapturePolicy policy = perCall.get();
+        return policy != null ? policy : defaultPolicy;
+    }
+
+    public boolean captureStackTrace() {
+        if (oneIn == 1) {
+            return true;
+        }
+        if (oneIn == 0) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextInt(oneIn) == 0;
+    }
+
+    /**
+     * Make policy the one in effect on this thread.
+     * @return the previous per-call policy, to be handed to exit
+     */
+    static CapturePolicy enter(CapturePolicy policy) {
+        CapturePolicy previous = perCall.get();
+        perCall.set(policy);
+        return previous;
+    }
+
+    static void exit(CapturePolicy previous) {
+        if (previous == null) {
+            perCall.remove();
+        } else {
+            perCall.set(previous);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (oneIn == 1) {
+            return "FULL";
+        }
+        if (oneIn == 0) {
+            return "STACKLESS";
+        }
+        return "SAMPLED(1-in-" + oneIn + ")";
+    }
+}
@@ -0,0 +1,186 @@
+package ttl.trywrap;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A TryWrap for double values.  The value is kept as a plain double, so
+ * nothing gets boxed on the way through a chain of maps.  The rules are
+ * the same as for TryWrap: a DoubleTryWrap is a right, a left or the
+ * Empty, and once a left or Empty, map/flatMap/filter just pass that on.
+ *
+ * Use mapToObj or boxed to get back to a TryWrap, and
+ * TryWrap.mapToDouble to get here from one.
+ *
+ * @author whynot
+ */
+public final class DoubleTryWrap extends PrimitiveTryWrap {
+
+    private static final DoubleTryWrap EMPTY = new DoubleTryWrap(0, TryWrap.EMPTY_MARKER, true);
+
+    private final double value;
+
+    /**
+     * Wrap either the result or an Exception in a DoubleTryWrap
+     *
+     * @param supplier
+     * @return
+     */
+    public static DoubleTryWrap of(MyDoubleSupplier supplier) {
+        double v = 0;
+        Exception l = null;
+        try {
+            v = supplier.getAsDouble();
+        } catch (Exception e) {
+            l = e;
+        }
+        return new DoubleTryWrap(v, l, false);
+    }
+
+    public static DoubleTryWrap ofRight(double x) {
+        return new DoubleTryWrap(x, null, false);
+    }
+
+    public static DoubleTryWrap ofLeft(Exception y) {
+        return new DoubleTryWrap(0, y, false);
+    }
+
+    public static DoubleTryWrap ofEmpty() {
+        return EMPTY;
+    }
+
+    public double right() {
+        if (!isRight()) {
+            throw new NoSuchElementException("Empty or left DoubleTryWrap");
+        }
+        return value;
+    }
+
+    /**
+     * If we have a right, call the function on it and wrap the result,
+     * or the Exception if it throws one.  A left or the Empty gives a
+     * copy of itself, not the receiver (see PrimitiveTryWrap for why).
+     * @param function
+     * @return
+     */
+    public DoubleTryWrap map(MyDoubleUnaryOperator function) {
+        double v = value;
+        Exception l = left;
+        if (l == null) {
+            try {
+                v = function.applyAsDouble(v);
+            } catch (Exception e) {
+                l = e;
+            }
+        }
+        return new DoubleTryWrap(v, l, empty);
+    }
+
+    /**
+     * Map to a TryWrap of some Object type.
+     * @param function
+     * @param <R>
+     * @return
+     */
+    public <R> TryWrap<R> mapToObj(MyDoubleFunction<? extends R> function) {
+        if (!isRight()) {
+            return toTryWrap();
+        }
+        try {
+            return TryWrap.ofRight(function.apply(value));
+        } catch (Exception e) {
+            return TryWrap.ofLeft(e);
+        }
+    }
+
+    public DoubleTryWrap flatMap(MyDoubleFunction<DoubleTryWrap> function) {
+        if (!isRight()) {
+            return this;
+        }
+        try {
+            return function.apply(value);
+        } catch (Exception e) {
+            return ofLeft(e);
+        }
+    }
+
+    /**
+     * If we have a right and the predicate passes, keep it, else become
+     * the shared Empty.  An Exception from the predicate gives a left.
+     * Allocates nothing unless the predicate throws.
+     * @param predicate
+     * @return
+     */
+    public DoubleTryWrap filter(MyDoublePredicate predicate) {
+        if (!isRight()) {
+            return this;
+        }
+        try {
+            return predicate.test(value) ? this : EMPTY;
+        } catch (Exception e) {
+            return ofLeft(e);
+        }
+    }
+
+    /**
+     * Box the value into a TryWrap.
+     * @return
+     */
+    public TryWrap<Double> boxed() {
+        if (!isRight()) {
+            return toTryWrap();
+        }
+        return TryWrap.ofRight(value);
+    }
+
+    /**
+     * Call the consumer if we have a value.
+     * Any Exceptions thrown from the consumer are
+     * rethrown as RuntimeExceptions
+     * @param consumer
+     */
+    public void ifPresent(MyDoubleConsumer consumer) {
+        if (isRight()) {
+            try {
+                consumer.accept(value);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public double orElse(double other) {
+        return isRight() ? value : other;
+    }
+
+    public double orElseThrow() throws Exception {
+        if (isRight()) {
+            return value;
+        }
+        throw toThrow();
+    }
+
+    public double orElseThrowUnchecked() {
+        if (isRight()) {
+            return value;
+        }
+        throw toThrowUnchecked();
+    }
+
+    private DoubleTryWrap(double value, Exception left, boolean empty) {
+        super(left, empty);
+        this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DoubleTryWrap that = (DoubleTryWrap) o;
+        return Double.compare(value, that.value) == 0 && sameOutcome(that);
+    }
+
+    @Override
+    public int hashCode() {
+        return outcomeHash(Double.hashCode(value));
+    }
+}
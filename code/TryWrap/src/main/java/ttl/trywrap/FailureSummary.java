@@ -0,0 +1,289 @@
+package ttl.trywrap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Summarizes the lefts from a (possibly huge) batch of TryWraps in a
+ * fixed amount of memory.  For each Exception class it keeps an exact
+ * count and a small random sample of the Exceptions themselves:
+ *
+ *   FailureSummary summary = new FailureSummary(5, 50);
+ *   records.parallelStream()
+ *       .map(r -> TryWrap.of(() -> parse(r)))
+ *       .forEach(tw -> tw.orElseConsume(summary));
+ *   System.out.println(summary);
+ *
+ * At most maxClasses Exception classes get their own entry.  Anything
+ * after that is lumped together as "other", so the memory used does
+ * not depend on how many failures (or kinds of failure) come through.
+ *
+ * It is safe to feed a FailureSummary from many threads.  The counts
+ * are exact, and kept in LongAdders.  The samples are a reservoir
+ * sample, so each failure of a class has the same chance of being kept.
+ * Rather than have every thread take arrival numbers from one counter,
+ * each class has a few reservoirs (stripes), picked by thread, and
+ * summaries() merges them into one sample.
+ *
+ * @author whynot
+ */
+public class FailureSummary implements MyConsumer<Exception> {
+
+    private final int samplesPerClass;
+    private final int maxClasses;
+
+    private final ConcurrentHashMap<Class<? extends Exception>, PerClass> byClass = new ConcurrentHashMap<>();
+    private final PerClass other;
+    private final LongAdder total = new LongAdder();
+
+    public FailureSummary() {
+        this(10, 100);
+    }
+
+    public FailureSummary(int samplesPerClass, int maxClasses) {
+        if (samplesPerClass < 0 || maxClasses < 1) {
+            throw new IllegalArgumentException("samplesPerClass: " + samplesPerClass
+                    + ", maxClasses: " + maxClasses);
+        }
+        this.samplesPerClass = samplesPerClass;
+        this.maxClasses = maxClasses;
+        this.other = new PerClass(samplesPerClass);
+    }
+
+    /**
+     * Record one failure.  This is what gets called from orElseConsume.
+     * @param e
+     */
+    @Override
+    public void accept(Exception e) {
+        total.increment();
+        perClass(e.getClass()).record(e);
+    }
+
+    /**
+     * Record the left of the TryWrap, if it has one.
+     * @param tryWrap
+     */
+    public void record(TryWrap<?> tryWrap) {
+        if (tryWrap.isLeft()) {
+            accept(tryWrap.left());
+        }
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public long count(Class<? extends Exception> exceptionClass) {
+        PerClass pc = byClass.get(exceptionClass);
+        return pc == null ? 0 : pc.count.sum();
+    }
+
+    /**
+     * How many failures came from classes that did not get their own entry.
+     * @return
+     */
+    public long otherCount() {
+        return other.count.sum();
+    }
+
+    /**
+     * A snapshot of the summary for each class, biggest count first.
+     * Failures that went into "other" come last, with a null class.
+     * @return
+     */
+    public List<ClassSummary> summaries() {
+        List<ClassSummary> result = new ArrayList<>(byClass.size() + 1);
+        for (Map.Entry<Class<? extends Exception>, PerClass> entry : byClass.entrySet()) {
+            result.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        result.sort(Comparator.comparingLong(ClassSummary::getCount).reversed());
+        long otherCount = other.count.sum();
+        if (otherCount > 0) {
+            result.add(other.snapshot(null));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FailureSummary: ").append(total()).append(" failures\n");
+        for (ClassSummary cs : summaries()) {
+            sb.append("  ").append(cs.getExceptionClass() == null ? "other" : cs.getExceptionClass().getName())
+                    .append(": ").append(cs.getCount()).append('\n');
+            for (String message : cs.getMessages()) {
+                sb.append("      ").append(message).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private PerClass perClass(Class<? extends Exception> exceptionClass) {
+        PerClass pc = byClass.get(exceptionClass);
+        if (pc != null) {
+            return pc;
+        }
+        //Racy, so we may end up with a few more than maxClasses.  Still bounded.
+        if (byClass.size() >= maxClasses) {
+            return other;
+        }
+        return byClass.computeIfAbsent(exceptionClass, c -> new PerClass(samplesPerClass));
+    }
+
+    private static final class PerClass {
+        //Enough that threads seldom share one, made as they are needed.
+        private static final int STRIPES = Math.min(64,
+                Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+        private final LongAdder count = new LongAdder();
+        private final int samples;
+        private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+
+        private PerClass(int samples) {
+            this.samples = samples;
+        }
+
+        private void record(Exception e) {
+            count.increment();
+            if (samples > 0) {
+                stripe().record(e);
+            }
+        }
+
+        private Stripe stripe() {
+            long id = Thread.currentThread().getId();
+            int i = (int) (id ^ (id >>> 16)) * 0x9E3779B9 >>> 16 & (STRIPES - 1);
+            Stripe stripe = stripes.get(i);
+            if (stripe == null) {
+                stripes.compareAndSet(i, null, new Stripe(samples));
+                stripe = stripes.get(i);
+            }
+            return stripe;
+        }
+
+        /**
+         * Merge the stripes' samples into one.  Each stripe's sample is a
+         * fair sample of that stripe's failures, so taking each next one
+         * from a stripe with probability (its failures not yet drawn) /
+         * (all failures not yet drawn) is a fair sample of them all.
+         */
+        private ClassSummary snapshot(Class<? extends Exception> exceptionClass) {
+            List<List<Exception>> kept = new ArrayList<>();
+            List<Long> left = new ArrayList<>();
+            long population = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                Stripe stripe = stripes.get(i);
+                if (stripe != null) {
+                    List<Exception> sample = stripe.sample();
+                    long seen = Math.max(stripe.seen.get(), sample.size());
+                    kept.add(sample);
+                    left.add(seen);
+                    population += seen;
+                }
+            }
+            List<Exception> merged = new ArrayList<>(samples);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (merged.size() < samples && population > 0) {
+                long r = random.nextLong(population);
+                int i = 0;
+                while (r >= left.get(i)) {
+                    r -= left.get(i);
+                    i++;
+                }
+                List<Exception> sample = kept.get(i);
+                if (sample.isEmpty()) {
+                    //Only if a record() is half done.  Nothing more to draw here.
+                    population -= left.get(i);
+                    left.set(i, 0L);
+                    continue;
+                }
+                merged.add(sample.remove(random.nextInt(sample.size())));
+                left.set(i, left.get(i) - 1);
+                population--;
+            }
+            return new ClassSummary(exceptionClass, count.sum(), merged);
+        }
+    }
+
+    /**
+     * A reservoir for the threads that land on it.
+     */
+    private static final class Stripe {
+        private final AtomicLong seen = new AtomicLong();
+        private final AtomicReferenceArray<Exception> reservoir;
+
+        private Stripe(int samples) {
+            reservoir = new AtomicReferenceArray<>(samples);
+        }
+
+        /**
+         * Algorithm R.  The nth failure goes into the reservoir
+         * with probability samples/n.
+         */
+        private void record(Exception e) {
+            long n = seen.incrementAndGet();
+            int samples = reservoir.length();
+            if (n <= samples) {
+                reservoir.set((int) (n - 1), e);
+                return;
+            }
+            long slot = ThreadLocalRandom.current().nextLong(n);
+            if (slot < samples) {
+                reservoir.set((int) slot, e);
+            }
+        }
+
+        private List<Exception> sample() {
+            List<Exception> kept = new ArrayList<>(reservoir.length());
+            for (int i = 0; i < reservoir.length(); i++) {
+                Exception e = reservoir.get(i);
+                if (e != null) {
+                    kept.add(e);
+                }
+            }
+            return kept;
+        }
+    }
+
+    /**
+     * What we know about one class of Exception.
+     */
+    public static final class ClassSummary {
+        private final Class<? extends Exception> exceptionClass;
+        private final long count;
+        private final List<Exception> samples;
+
+        private ClassSummary(Class<? extends Exception> exceptionClass, long count, List<Exception> samples) {
+            this.exceptionClass = exceptionClass;
+            this.count = count;
+            this.samples = samples;
+        }
+
+        public Class<? extends Exception> getExceptionClass() {
+            return exceptionClass;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public List<Exception> getSamples() {
+            return samples;
+        }
+
+        public List<String> getMessages() {
+            List<String> messages = new ArrayList<>(samples.size());
+            for (Exception e : samples) {
+                messages.add(String.valueOf(e.getMessage()));
+            }
+            return messages;
+        }
+    }
+}
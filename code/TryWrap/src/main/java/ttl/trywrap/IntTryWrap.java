@@ -0,0 +1,186 @@
+package ttl.trywrap;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A TryWrap for int values.  The value is kept as a plain int, so
+ * nothing gets boxed on the way through a chain of maps.  The rules are
+ * the same as for TryWrap: an IntTryWrap is a right, a left or the
+ * Empty, and once a left or Empty, map/flatMap/filter just pass that on.
+ *
+ * Use mapToObj or boxed to get back to a TryWrap, and
+ * TryWrap.mapToInt to get here from one.
+ *
+ * @author whynot
+ */
+public final class IntTryWrap extends PrimitiveTryWrap {
+
+    private static final IntTryWrap EMPTY = new IntTryWrap(0, TryWrap.EMPTY_MARKER, true);
+
+    private final int value;
+
+    /**
+     * Wrap either the result or an Exception in an IntTryWrap
+     *
+     * @param supplier
+     * @return
+     */
+    public static IntTryWrap of(MyIntSupplier supplier) {
+        int v = 0;
+        Exception l = null;
+        try {
+            v = supplier.getAsInt();
+        } catch (Exception e) {
+            l = e;
+        }
+        return new IntTryWrap(v, l, false);
+    }
+
+    public static IntTryWrap ofRight(int x) {
+        return new IntTryWrap(x, null, false);
+    }
+
+    public static IntTryWrap ofLeft(Exception y) {
+        return new IntTryWrap(0, y, false);
+    }
+
+    public static IntTryWrap ofEmpty() {
+        return EMPTY;
+    }
+
+    public int right() {
+        if (!isRight()) {
+            throw new NoSuchElementException("Empty or left IntTryWrap");
+        }
+        return value;
+    }
+
+    /**
+     * If we have a right, call the function on it and wrap the result,
+     * or the Exception if it throws one.  A left or the Empty gives a
+     * copy of itself, not the receiver (see PrimitiveTryWrap for why).
+     * @param function
+     * @return
+     */
+    public IntTryWrap map(MyIntUnaryOperator function) {
+        int v = value;
+        Exception l = left;
+        if (l == null) {
+            try {
+                v = function.applyAsInt(v);
+            } catch (Exception e) {
+                l = e;
+            }
+        }
+        return new IntTryWrap(v, l, empty);
+    }
+
+    /**
+     * Map to a TryWrap of some Object type.
+     * @param function
+     * @param <R>
+     * @return
+     */
+    public <R> TryWrap<R> mapToObj(MyIntFunction<? extends R> function) {
+        if (!isRight()) {
+            return toTryWrap();
+        }
+        try {
+            return TryWrap.ofRight(function.apply(value));
+        } catch (Exception e) {
+            return TryWrap.ofLeft(e);
+        }
+    }
+
+    public IntTryWrap flatMap(MyIntFunction<IntTryWrap> function) {
+        if (!isRight()) {
+            return this;
+        }
+        try {
+            return function.apply(value);
+        } catch (Exception e) {
+            return ofLeft(e);
+        }
+    }
+
+    /**
+     * If we have a right and the predicate passes, keep it, else become
+     * the shared Empty.  An Exception from the predicate gives a left.
+     * Allocates nothing unless the predicate throws.
+     * @param predicate
+     * @return
+     */
+    public IntTryWrap filter(MyIntPredicate predicate) {
+        if (!isRight()) {
+            return this;
+        }
+        try {
+            return predicate.test(value) ? this : EMPTY;
+        } catch (Exception e) {
+            return ofLeft(e);
+        }
+    }
+
+    /**
+     * Box the value into a TryWrap.
+     * @return
+     */
+    public TryWrap<Integer> boxed() {
+        if (!isRight()) {
+            return toTryWrap();
+        }
+        return TryWrap.ofRight(value);
+    }
+
+    /**
+     * Call the consumer if we have a value.
+     * Any Exceptions thrown from the consumer are
+     * rethrown as RuntimeExceptions
+     * @param consumer
+     */
+    public void ifPresent(MyIntConsumer consumer) {
+        if (isRight()) {
+            try {
+                consumer.accept(value);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public int orElse(int other) {
+        return isRight() ? value : other;
+    }
+
+    public int orElseThrow() throws Exception {
+        if (isRight()) {
+            return value;
+        }
+        throw toThrow();
+    }
+
+    public int orElseThrowUnchecked() {
+        if (isRight()) {
+            return value;
+        }
+        throw toThrowUnchecked();
+    }
+
+    private IntTryWrap(int value, Exception left, boolean empty) {
+        super(left, empty);
+        this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IntTryWrap that = (IntTryWrap) o;
+        return value == that.value && sameOutcome(that);
+    }
+
+    @Override
+    public int hashCode() {
+        return outcomeHash(Integer.hashCode(value));
+    }
+}
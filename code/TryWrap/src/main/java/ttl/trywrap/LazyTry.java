@@ -0,0 +1,213 @@
+package ttl.trywrap;
+
+/**
+ * A lazy version of TryWrap.  map, flatMap and filter do not run anything,
+ * they just record the stage.  When a terminal operation (toTryWrap, orElse,
+ * orElseThrow, ifPresent etc.) is called, all the stages are run one after
+ * the other inside a single try block, without creating a TryWrap for each
+ * intermediate result.
+ *
+ * The rules are the same as for TryWrap:
+ * - An Exception from any stage makes the result a left, and the remaining
+ *   stages are skipped.
+ * - A filter that fails makes the result the Empty, and the remaining stages
+ *   are skipped.
+ * - A null value is passed along untouched, just like TryWrap.map does with
+ *   a null right.
+ *
+ * A LazyTry is immutable and can be run any number of times.  Each run calls
+ * the source and every stage again.
+ *
+ * @author whynot
+ */
+public final class LazyTry<T> {
+
+    private static final byte SOURCE = 0;
+    private static final byte FROM_TRY = 1;
+    private static final byte MAP = 2;
+    private static final byte FLAT_MAP = 3;
+    private static final byte FLAT_MAP_TRY = 4;
+    private static final byte FILTER = 5;
+
+    /**
+     * Returned from eval when a filter has rejected the value.
+     */
+    private static final Object NONE = new Object();
+
+    private final LazyTry<?> prev;
+    private final Object stage;
+    private final byte kind;
+    //How many stages come before this one.
+    private final int depth;
+
+    private LazyTry(LazyTry<?> prev, Object stage, byte kind) {
+        this.prev = prev;
+        this.stage = stage;
+        this.kind = kind;
+        this.depth = prev == null ? 0 : prev.depth + 1;
+    }
+
+    /**
+     * Start a pipeline from a supplier.  The supplier is not called
+     * until a terminal operation is run.
+     * @param supplier
+     * @param <T>
+     * @return
+     */
+    public static <T> LazyTry<T> of(MySupplier<? extends T> supplier) {
+        return new LazyTry<>(null, supplier, SOURCE);
+    }
+
+    /**
+     * Start a pipeline from an existing TryWrap.  A left or Empty
+     * TryWrap will come out of the other end unchanged.
+     * @param tryWrap
+     * @param <T>
+     * @return
+     */
+    public static <T> LazyTry<T> from(TryWrap<? extends T> tryWrap) {
+        return new LazyTry<>(null, tryWrap, FROM_TRY);
+    }
+
+    public <R> LazyTry<R> map(MyFunction<? super T, ? extends R> function) {
+        return new LazyTry<>(this, function, MAP);
+    }
+
+    public <R> LazyTry<R> flatMap(MyFunction<? super T, LazyTry<R>> function) {
+        return new LazyTry<>(this, function, FLAT_MAP);
+    }
+
+    /**
+     * flatMap with a function that returns an (eager) TryWrap.
+     * @param function
+     * @param <R>
+     * @return
+     */
+    public <R> LazyTry<R> flatMapTry(MyFunction<? super T, TryWrap<R>> function) {
+        return new LazyTry<>(this, function, FLAT_MAP_TRY);
+    }
+
+    public LazyTry<T> filter(MyPredicate<? super T> predicate) {
+        return new LazyTry<>(this, predicate, FILTER);
+    }
+
+    /**
+     * Run the pipeline and wrap the outcome.
+     * @return A right, a left or the Empty, by the TryWrap rules.
+     */
+    @SuppressWarnings("unchecked")
+    public TryWrap<T> toTryWrap() {
+        try {
+            Object result = eval();
+            if (result == NONE) {
+                return TryWrap.ofEmpty();
+            }
+            return TryWrap.ofRight((T) result);
+        } catch (Exception e) {
+            return TryWrap.ofLeft(e);
+        }
+    }
+
+    /**
+     * Run the pipeline and return the value, or t if the
+     * pipeline failed or was filtered out.
+     * @param t
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T orElse(T t) {
+        try {
+            Object result = eval();
+            if (result == NONE || result == null) {
+                return t;
+            }
+            return (T) result;
+        } catch (Exception e) {
+            return t;
+        }
+    }
+
+    /**
+     * Run the pipeline.  Throw the Exception from the failed stage, or
+     * NoSuchElementException if the value was filtered out.
+     * @return
+     * @throws Exception
+     */
+    public T orElseThrow() throws Exception {
+        return toTryWrap().orElseThrow();
+    }
+
+    /**
+     * Run the pipeline and call the consumer if we end up with a value.
+     * Any Exceptions thrown from the consumer are rethrown as
+     * RuntimeExceptions
+     * @param consumer
+     */
+    public void ifPresent(MyConsumer<T> consumer) {
+        toTryWrap().ifPresent(consumer);
+    }
+
+    /**
+     * Run the pipeline and call the consumer with the Exception if
+     * a stage failed.
+     * @param consumer
+     */
+    public void orElseConsume(MyConsumer<Exception> consumer) {
+        toTryWrap().orElseConsume(consumer);
+    }
+
+    /**
+     * Run the stages up to and including this one.  No try here, the
+     * terminal operation has the only one.
+     *
+     * The stages are linked backwards, from the last to the source, so
+     * they are first copied into an array and then run in a loop.  That
+     * costs one array per run, but a pipeline built in a loop can be as
+     * long as you like without running out of stack.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object eval() throws Exception {
+        LazyTry<?>[] stages = new LazyTry<?>[depth + 1];
+        for (LazyTry<?> at = this; at != null; at = at.prev) {
+            stages[at.depth] = at;
+        }
+
+        LazyTry<?> source = stages[0];
+        Object value = source.kind == SOURCE
+                ? ((MySupplier) source.stage).get()
+                : unwrap((TryWrap<?>) source.stage);
+        for (int i = 1; i < stages.length && value != NONE && value != null; i++) {
+            Object stage = stages[i].stage;
+            switch (stages[i].kind) {
+                case MAP:
+                    value = ((MyFunction) stage).apply(value);
+                    break;
+                case FLAT_MAP:
+                    value = ((LazyTry<?>) ((MyFunction) stage).apply(value)).eval();
+                    break;
+                case FLAT_MAP_TRY:
+                    value = unwrap((TryWrap<?>) ((MyFunction) stage).apply(value));
+                    break;
+                case FILTER:
+                    value = ((MyPredicate) stage).test(value) ? value : NONE;
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown stage: " + stages[i].kind);
+            }
+        }
+        return value;
+    }
+
+    private static Object unwrap(TryWrap<?> tw) throws Exception {
+        if (tw.isRight()) {
+            return tw.right();
+        }
+        if (tw.isEmpty()) {
+            return NONE;
+        }
+        if (tw.isLeft()) {
+            throw tw.left();
+        }
+        return null;
+    }
+}
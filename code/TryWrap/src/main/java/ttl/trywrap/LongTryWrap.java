@@ -0,0 +1,186 @@
+package ttl.trywrap;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A TryWrap for long values.  The value is kept as a plain long, so
+ * nothing gets boxed on the way through a chain of maps.  The rules are
+ * the same as for TryWrap: a LongTryWrap is a right, a left or the
+ * Empty, and once a left or Empty, map/flatMap/filter just pass that on.
+ *
+ * Use mapToObj or boxed to get back to a TryWrap, and
+ * TryWrap.mapToLong to get here from one.
+ *
+ * @author whynot
+ */
+public final class LongTryWrap extends PrimitiveTryWrap {
+
+    private static final LongTryWrap EMPTY = new LongTryWrap(0, TryWrap.EMPTY_MARKER, true);
+
+    private final long value;
+
+    /**
+     * Wrap either the result or an Exception in a LongTryWrap
+     *
+     * @param supplier
+     * @return
+     */
+    public static LongTryWrap of(MyLongSupplier supplier) {
+        long v = 0;
+        Exception l = null;
+        try {
+            v = supplier.getAsLong();
+        } catch (Exception e) {
+            l = e;
+        }
+        return new LongTryWrap(v, l, false);
+    }
+
+    public static LongTryWrap ofRight(long x) {
+        return new LongTryWrap(x, null, false);
+    }
+
+    public static LongTryWrap ofLeft(Exception y) {
+        return new LongTryWrap(0, y, false);
+    }
+
+    public static LongTryWrap ofEmpty() {
+        return EMPTY;
+    }
+
+    public long right() {
+        if (!isRight()) {
+            throw new NoSuchElementException("Empty or left LongTryWrap");
+        }
+        return value;
+    }
+
+    /**
+     * If we have a right, call the function on it and wrap the result,
+     * or the Exception if it throws one.  A left or the Empty gives a
+     * copy of itself, not the receiver (see PrimitiveTryWrap for why).
+     * @param function
+     * @return
+     */
+    public LongTryWrap map(MyLongUnaryOperator function) {
+        long v = value;
+        Exception l = left;
+        if (l == null) {
+            try {
+                v = function.applyAsLong(v);
+            } catch (Exception e) {
+                l = e;
+            }
+        }
+        return new LongTryWrap(v, l, empty);
+    }
+
+    /**
+     * Map to a TryWrap of some Object type.
+     * @param function
+     * @param <R>
+     * @return
+     */
+    public <R> TryWrap<R> mapToObj(MyLongFunction<? extends R> function) {
+        if (!isRight()) {
+            return toTryWrap();
+        }
+        try {
+            return TryWrap.ofRight(function.apply(value));
+        } catch (Exception e) {
+            return TryWrap.ofLeft(e);
+        }
+    }
+
+    public LongTryWrap flatMap(MyLongFunction<LongTryWrap> function) {
+        if (!isRight()) {
+            return this;
+        }
+        try {
+            return function.apply(value);
+        } catch (Exception e) {
+            return ofLeft(e);
+        }
+    }
+
+    /**
+     * If we have a right and the predicate passes, keep it, else become
+     * the shared Empty.  An Exception from the predicate gives a left.
+     * Allocates nothing unless the predicate throws.
+     * @param predicate
+     * @return
+     */
+    public LongTryWrap filter(MyLongPredicate predicate) {
+        if (!isRight()) {
+            return this;
+        }
+        try {
+            return predicate.test(value) ? this : EMPTY;
+        } catch (Exception e) {
+            return ofLeft(e);
+        }
+    }
+
+    /**
+     * Box the value into a TryWrap.
+     * @return
+     */
+    public TryWrap<Long> boxed() {
+        if (!isRight()) {
+            return toTryWrap();
+        }
+        return TryWrap.ofRight(value);
+    }
+
+    /**
+     * Call the consumer if we have a value.
+     * Any Exceptions thrown from the consumer are
+     * rethrown as RuntimeExceptions
+     * @param consumer
+     */
+    public void ifPresent(MyLongConsumer consumer) {
+        if (isRight()) {
+            try {
+                consumer.accept(value);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public long orElse(long other) {
+        return isRight() ? value : other;
+    }
+
+    public long orElseThrow() throws Exception {
+        if (isRight()) {
+            return value;
+        }
+        throw toThrow();
+    }
+
+    public long orElseThrowUnchecked() {
+        if (isRight()) {
+            return value;
+        }
+        throw toThrowUnchecked();
+    }
+
+    private LongTryWrap(long value, Exception left, boolean empty) {
+        super(left, empty);
+        this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LongTryWrap that = (LongTryWrap) o;
+        return Long.compare(value, that.value) == 0 && sameOutcome(that);
+    }
+
+    @Override
+    public int hashCode() {
+        return outcomeHash(Long.hashCode(value));
+    }
+}
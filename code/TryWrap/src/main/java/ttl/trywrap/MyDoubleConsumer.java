@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyConsumer of a double, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyDoubleConsumer {
+    public void accept(double t) throws Exception;
+}
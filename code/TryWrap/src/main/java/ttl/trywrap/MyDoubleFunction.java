@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction that takes a double without boxing it.
+ *
+ * @author whynot
+ */
+public interface MyDoubleFunction<R> {
+    public R apply(double t) throws Exception;
+}
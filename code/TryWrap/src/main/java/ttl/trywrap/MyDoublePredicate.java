@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyPredicate on a double, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyDoublePredicate {
+    public boolean test(double t) throws Exception;
+}
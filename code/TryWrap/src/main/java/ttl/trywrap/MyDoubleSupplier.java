@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MySupplier that produces a double without boxing.
+ *
+ * @author whynot
+ */
+public interface MyDoubleSupplier {
+    public double getAsDouble() throws Exception;
+}
@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction from double to double, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyDoubleUnaryOperator {
+    public double applyAsDouble(double t) throws Exception;
+}
@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyConsumer of an int, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyIntConsumer {
+    public void accept(int t) throws Exception;
+}
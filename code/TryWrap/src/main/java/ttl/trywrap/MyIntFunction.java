@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction that takes an int without boxing it.
+ *
+ * @author whynot
+ */
+public interface MyIntFunction<R> {
+    public R apply(int t) throws Exception;
+}
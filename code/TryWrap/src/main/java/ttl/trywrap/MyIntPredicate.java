@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyPredicate on an int, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyIntPredicate {
+    public boolean test(int t) throws Exception;
+}
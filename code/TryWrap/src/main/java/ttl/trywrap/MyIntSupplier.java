@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MySupplier that produces an int without boxing.
+ *
+ * @author whynot
+ */
+public interface MyIntSupplier {
+    public int getAsInt() throws Exception;
+}
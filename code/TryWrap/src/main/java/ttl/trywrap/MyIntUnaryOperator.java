@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction from int to int, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyIntUnaryOperator {
+    public int applyAsInt(int t) throws Exception;
+}
@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyConsumer of a long, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyLongConsumer {
+    public void accept(long t) throws Exception;
+}
@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction that takes a long without boxing it.
+ *
+ * @author whynot
+ */
+public interface MyLongFunction<R> {
+    public R apply(long t) throws Exception;
+}
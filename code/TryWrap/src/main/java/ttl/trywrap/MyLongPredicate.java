@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyPredicate on a long, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyLongPredicate {
+    public boolean test(long t) throws Exception;
+}
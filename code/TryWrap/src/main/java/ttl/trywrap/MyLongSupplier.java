@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MySupplier that produces a long without boxing.
+ *
+ * @author whynot
+ */
+public interface MyLongSupplier {
+    public long getAsLong() throws Exception;
+}
@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction from long to long, without boxing.
+ *
+ * @author whynot
+ */
+public interface MyLongUnaryOperator {
+    public long applyAsLong(long t) throws Exception;
+}
@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction that produces a double without boxing.
+ *
+ * @author whynot
+ */
+public interface MyToDoubleFunction<T> {
+    public double applyAsDouble(T t) throws Exception;
+}
@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction that produces an int without boxing.
+ *
+ * @author whynot
+ */
+public interface MyToIntFunction<T> {
+    public int applyAsInt(T t) throws Exception;
+}
@@ -0,0 +1,10 @@
+package ttl.trywrap;
+
+/**
+ * A MyFunction that produces a long without boxing.
+ *
+ * @author whynot
+ */
+public interface MyToLongFunction<T> {
+    public long applyAsLong(T t) throws Exception;
+}
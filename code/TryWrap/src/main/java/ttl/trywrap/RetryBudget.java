@@ -0,0 +1,93 @@
+package ttl.trywrap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries at a fraction of calls, so that when a dependency is down,
+ * retrying does not multiply the load on it.  Share one budget between
+ * all the callers of the same dependency:
+ *
+ *   static final RetryBudget QUOTES = new RetryBudget(0.1, 10);
+ *
+ * It is a token bucket.  Every call puts retryRatio of a token in, and
+ * every retry takes a whole token out, so over time at most retryRatio
+ * retries happen per call.  The bucket starts full, and never holds
+ * more than maxTokens, so a quiet caller can still retry a few times
+ * in a row, but a burst of failures soon runs it dry.
+ *
+ * Lock free - the tokens live in an AtomicLong, in thousandths.
+ *
+ * @author whynot
+ */
+public class RetryBudget {
+
+    private static final long ONE_TOKEN = 1000;
+
+    private final long perCall;
+    private final long max;
+    private final AtomicLong tokens;
+
+    /**
+     * @param retryRatio Retries allowed per call, e.g. 0.1 for 10%
+     * @param maxTokens Most retries that can be saved up for a burst
+     */
+    public RetryBudget(double retryRatio, int maxTokens) {
+        if (retryRatio < 0 || maxTokens < 1) {
+            throw new IllegalArgumentException("retryRatio: " + retryRatio + ", maxTokens: " + maxTokens);
+        }
+        this.perCall = Math.round(retryRatio * ONE_TOKEN);
+        this.max = maxTokens * ONE_TOKEN;
+        this.tokens = new AtomicLong(max);
+    }
+
+    /**
+     * A budget that never says no.
+     */
+    public static RetryBudget unlimited() {
+        return new RetryBudget(0, 1) {
+            @Override
+            void recordCall() {
+            }
+
+            @Override
+            public boolean tryRetry() {
+                return true;
+            }
+        };
+    }
+
+    void recordCall() {
+        if (perCall == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= max) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(max, current + perCall)));
+    }
+
+    /**
+     * Take a token for a retry, if there is one.
+     * @return true if the retry may go ahead
+     */
+    public boolean tryRetry() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < ONE_TOKEN) {
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - ONE_TOKEN));
+        return true;
+    }
+
+    /**
+     * @return How many retries could happen right now
+     */
+    public double available() {
+        return (double) tokens.get() / ONE_TOKEN;
+    }
+}
@@ -0,0 +1,123 @@
+package ttl.trywrap;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How TryWrap.retrying retries:
+ *
+ *   RetryPolicy policy = RetryPolicy.of(4, Duration.ofMillis(50), Duration.ofSeconds(2))
+ *           .retryOn(IOException.class, TimeoutException.class)
+ *           .withBudget(QUOTES_BUDGET);
+ *
+ * - maxAttempts counts the first call, so 4 means up to 3 retries.
+ * - The wait before each retry uses "decorrelated jitter": a random time
+ *   between baseDelay and 3 times the previous wait, capped at maxDelay.
+ *   Callers that failed together spread out instead of retrying in step.
+ * - Only lefts the classifier accepts are retried.  By default, all of
+ *   them except an InterruptedException: somebody wants us to stop.
+ * - Each retry needs a token from the RetryBudget.  By default there is
+ *   no limit.
+ *
+ * RetryPolicy is immutable; retryOn and withBudget return a new one.
+ *
+ * @author whynot
+ */
+public final class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseNanos;
+    private final long maxNanos;
+    private final MyPredicate<? super Exception> retryOn;
+    private final RetryBudget budget;
+
+    private RetryPolicy(int maxAttempts, long baseNanos, long maxNanos,
+                        MyPredicate<? super Exception> retryOn, RetryBudget budget) {
+        this.maxAttempts = maxAttempts;
+        this.baseNanos = baseNanos;
+        this.maxNanos = maxNanos;
+        this.retryOn = retryOn;
+        this.budget = budget;
+    }
+
+    public static RetryPolicy of(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        if (maxAttempts < 1 || baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+            throw new IllegalArgumentException("maxAttempts: " + maxAttempts + ", baseDelay: " + baseDelay
+                    + ", maxDelay: " + maxDelay);
+        }
+        return new RetryPolicy(maxAttempts, baseDelay.toNanos(), maxDelay.toNanos(),
+                e -> !(e instanceof InterruptedException),
+                RetryBudget.unlimited());
+    }
+
+    /**
+     * Only retry lefts the classifier says yes to.  If the classifier
+     * throws, we don't retry.
+     * @param classifier
+     * @return
+     */
+    public RetryPolicy retryOn(MyPredicate<? super Exception> classifier) {
+        return new RetryPolicy(maxAttempts, baseNanos, maxNanos, classifier, budget);
+    }
+
+    /**
+     * Only retry lefts that are one of these types (or subclasses).
+     * @param types
+     * @return
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") //The copy is only read.
+    public final RetryPolicy retryOn(Class<? extends Exception>... types) {
+        Class<? extends Exception>[] copy = types.clone();
+        return retryOn(e -> {
+            for (Class<? extends Exception> type : copy) {
+                if (type.isInstance(e)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    public RetryPolicy withBudget(RetryBudget budget) {
+        return new RetryPolicy(maxAttempts, baseNanos, maxNanos, retryOn, budget);
+    }
+
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    RetryBudget budget() {
+        return budget;
+    }
+
+    /**
+     * Should we go again after this left on this attempt (1 based)?  Takes
+     * a token from the budget if the answer is yes.
+     */
+    boolean shouldRetry(Exception e, int attempt) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+        try {
+            if (!retryOn.test(e)) {
+                return false;
+            }
+        } catch (Exception classifierFailed) {
+            return false;
+        }
+        return budget.tryRetry();
+    }
+
+    /**
+     * The wait before the next retry, given the last one (0 before the
+     * first retry).
+     */
+    long nextDelayNanos(long previousNanos) {
+        long upper = Math.max(baseNanos, previousNanos) * 3;
+        if (upper <= baseNanos) {
+            return Math.min(maxNanos, baseNanos);
+        }
+        return Math.min(maxNanos, ThreadLocalRandom.current().nextLong(baseNanos, upper));
+    }
+}
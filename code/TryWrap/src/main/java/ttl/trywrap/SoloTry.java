@@ -3,16 +3,44 @@ package ttl.trywrap;
 import java.util.Objects;
 
 /**
+ * A Try that is either a Success or a Failure, and nothing else - the
+ * constructor is private, so the two nested classes are the only
+ * subclasses there can be.
+ *
+ * Both are immutable, with final fields, and a Failure is passed along a
+ * chain as is (map/flatMap on a Failure return the same object), so a
+ * failing chain allocates nothing after the first Failure.  A short
+ * chain on the success path, like
+ *
+ *   SoloTry.of(() -> parse(s)).map(x -> x * 2).get()
+ *
+ * allocates nothing at all once C2 has compiled it: each method has one
+ * allocation site for the common path, so escape analysis can replace
+ * the Success objects with their fields.  See SoloTryBenchmark in
+ * ThreadDemos.
+ *
  * @author whynot
  */
 public abstract class SoloTry<T> {
 
+    private SoloTry() {
+    }
+
     public static <T> SoloTry<T> of(MySupplier<T> supplier) {
         try {
             T t = supplier.get();
-            return new Success(t);
+            return new Success<>(t);
         }catch(Exception e) {
-           return new Failure(e);
+           return new Failure<>(e);
+        }
+    }
+
+    public static <T> SoloTry<T> of(CapturePolicy policy, MySupplier<T> supplier) {
+        CapturePolicy previous = CapturePolicy.enter(policy);
+        try {
+            return of(supplier);
+        } finally {
+            CapturePolicy.exit(previous);
         }
     }
 
@@ -22,17 +50,44 @@ public abstract class SoloTry<T> {
     public abstract <R> SoloTry<R> map(MyFunction<? super T, ? extends R> function);
     public abstract <R> SoloTry<R> flatMap(MyFunction<? super T, SoloTry<R>> function);
 
+    /**
+     * Turn a Failure into a Success (or another Failure, if the function
+     * throws).  A Success is returned as is.
+     * @param function
+     * @return
+     */
+    public abstract SoloTry<T> recover(MyFunction<? super Exception, ? extends T> function);
+
+    /**
+     * Like recover, for functions that return a SoloTry themselves.
+     * @param function
+     * @return
+     */
+    public abstract SoloTry<T> recoverWith(MyFunction<? super Exception, SoloTry<T>> function);
+
+    /**
+     * Collapse to a single value, by applying onSuccess to the value or
+     * onFailure to the Exception.  Whatever the function throws is thrown.
+     * @param onSuccess
+     * @param onFailure
+     * @param <R>
+     * @return
+     * @throws Exception
+     */
+    public abstract <R> R fold(MyFunction<? super T, ? extends R> onSuccess,
+                               MyFunction<? super Exception, ? extends R> onFailure) throws Exception;
+
     public abstract boolean equals(Object o);
 
     public static <U> Success<U> asSuccess(U u) {
-        return new Success<U>(u);
+        return new Success<>(u);
     }
-    public static Failure<Exception> asFailure(Exception e) {
-        return new Failure(e);
+    public static <U> Failure<U> asFailure(Exception e) {
+        return new Failure<>(e);
     }
 
-    public static class Failure<T> extends SoloTry<T> {
-        private Exception exception;
+    public static final class Failure<T> extends SoloTry<T> {
+        private final Exception exception;
 
         private Failure(Exception throwable) {
             this.exception = throwable;
@@ -50,20 +105,48 @@ public abstract class SoloTry<T> {
 
         @Override
         public <R> SoloTry<R> map(MyFunction<? super T, ? extends R> function) {
-            return new Failure(exception);
+            return retype();
         }
 
         @Override
         public <R> SoloTry<R> flatMap(MyFunction<? super T, SoloTry<R>> function) {
-            return new Failure(exception);
+            return retype();
+        }
+
+        @Override
+        public SoloTry<T> recover(MyFunction<? super Exception, ? extends T> function) {
+            return of(() -> function.apply(exception));
+        }
+
+        @Override
+        public SoloTry<T> recoverWith(MyFunction<? super Exception, SoloTry<T>> function) {
+            try {
+                return function.apply(exception);
+            }catch(Exception e) {
+                return new Failure<>(e);
+            }
+        }
+
+        @Override
+        public <R> R fold(MyFunction<? super T, ? extends R> onSuccess,
+                          MyFunction<? super Exception, ? extends R> onFailure) throws Exception {
+            return onFailure.apply(exception);
+        }
+
+        /**
+         * A Failure has no value, so it is a Failure of any type.
+         */
+        @SuppressWarnings("unchecked")
+        private <R> SoloTry<R> retype() {
+            return (SoloTry<R>) this;
         }
 
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
-            Success<?> success = (Success<?>) o;
-            return Objects.equals(exception, success.value);
+            Failure<?> failure = (Failure<?>) o;
+            return Objects.equals(exception, failure.exception);
         }
 
         @Override
@@ -72,8 +155,8 @@ public abstract class SoloTry<T> {
         }
     }
 
-    public static class Success<T> extends SoloTry<T> {
-        private T value;
+    public static final class Success<T> extends SoloTry<T> {
+        private final T value;
 
         private Success(T value) {
             this.value = value;
@@ -93,9 +176,9 @@ public abstract class SoloTry<T> {
         public <R> SoloTry<R> map(MyFunction<? super T, ? extends R> function) {
             try {
                 R r = function.apply(value);
-                return new Success(r);
+                return new Success<>(r);
             }catch(Exception e) {
-                return new Failure(e);
+                return new Failure<>(e);
             }
         }
 
@@ -105,10 +188,26 @@ public abstract class SoloTry<T> {
                 SoloTry<R> newVal = function.apply(value);
                 return newVal;
             }catch(Exception e) {
-                return new Failure(e);
+                return new Failure<>(e);
             }
         }
 
+        @Override
+        public SoloTry<T> recover(MyFunction<? super Exception, ? extends T> function) {
+            return this;
+        }
+
+        @Override
+        public SoloTry<T> recoverWith(MyFunction<? super Exception, SoloTry<T>> function) {
+            return this;
+        }
+
+        @Override
+        public <R> R fold(MyFunction<? super T, ? extends R> onSuccess,
+                          MyFunction<? super Exception, ? extends R> onFailure) throws Exception {
+            return onSuccess.apply(value);
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -0,0 +1,220 @@
+package ttl.trywrap;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A circuit breaker for TryWrap.  Calls go through the breaker:
+ *
+ *   TryBreaker breaker = new TryBreaker(0.5, 20, Duration.ofSeconds(10), Duration.ofSeconds(5));
+ *   TryWrap<Quote> quote = breaker.call(() -> quoteService.get(symbol));
+ *
+ * While CLOSED, calls run as normal and the breaker counts calls and
+ * failures over a sliding window.  Once at least minimumCalls have been
+ * made in the window and the failure rate reaches the threshold, the
+ * breaker goes OPEN.  While OPEN, calls return a left straight away,
+ * without calling the supplier.  After openDuration a single trial call
+ * is let through (HALF_OPEN).  If it works we go back to CLOSED, if not,
+ * OPEN again.
+ *
+ * There are no locks.  The state lives in one AtomicLong (state in the
+ * low 2 bits, the time we opened in the rest) and changes by CAS.  The
+ * window is a ring of buckets, each an AtomicLong holding both the call
+ * and failure counts, so recording a call is one atomic add.  The rate is
+ * only worked out after a failure, since a success can't trip anything.
+ *
+ * The window is approximate: calls landing just as a bucket is recycled
+ * may be lost.  That is fine for deciding whether something is broken.
+ *
+ * @author whynot
+ */
+public class TryBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final long CLOSED = 0;
+    private static final long OPEN = 1;
+    private static final long HALF_OPEN = 2;
+    private static final long STATE_MASK = 3;
+
+    private static final long ONE_CALL = 1L << 32;
+    private static final long ONE_FAILURE = 1;
+    private static final long FAILURE_MASK = 0xFFFFFFFFL;
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long bucketNanos;
+    private final long openNanos;
+    private final long origin = System.nanoTime();
+
+    private final AtomicLong stateWord = new AtomicLong(CLOSED);
+    private final AtomicLongArray bucketEpochs;
+    private final AtomicLongArray bucketCounts;
+
+    private final TryWrap<?> rejected = TryWrap.ofLeft(new OpenException());
+
+    /**
+     * A breaker with a window of 10 buckets.
+     */
+    public TryBreaker(double failureRateThreshold, int minimumCalls, Duration window, Duration openDuration) {
+        this(failureRateThreshold, minimumCalls, window, 10, openDuration);
+    }
+
+    /**
+     * @param failureRateThreshold Open when failures/calls in the window reaches this (0 to 1)
+     * @param minimumCalls Don't open unless at least this many calls are in the window
+     * @param window How far back to look
+     * @param buckets How many slices to cut the window into
+     * @param openDuration How long to stay open before letting a trial call through
+     */
+    public TryBreaker(double failureRateThreshold, int minimumCalls, Duration window, int buckets,
+                      Duration openDuration) {
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be in (0, 1]: " + failureRateThreshold);
+        }
+        if (buckets < 1 || window.toNanos() < buckets) {
+            throw new IllegalArgumentException("Bad window: " + window + " / " + buckets);
+        }
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.max(1, minimumCalls);
+        this.bucketNanos = window.toNanos() / buckets;
+        this.openNanos = openDuration.toNanos();
+        this.bucketEpochs = new AtomicLongArray(buckets);
+        this.bucketCounts = new AtomicLongArray(buckets);
+        for (int i = 0; i < buckets; i++) {
+            bucketEpochs.set(i, -1);
+        }
+    }
+
+    /**
+     * Call the supplier, unless we are open.
+     * @param supplier
+     * @param <T>
+     * @return The supplier's outcome, or a left with an OpenException
+     */
+    public <T> TryWrap<T> call(MySupplier<T> supplier) {
+        long word = stateWord.get();
+        long state = word & STATE_MASK;
+        if (state == CLOSED) {
+            TryWrap<T> result = TryWrap.of(supplier);
+            if (result.isLeft()) {
+                recordFailure(word);
+            } else {
+                record(0);
+            }
+            return result;
+        }
+        if (state == OPEN && now() - (word >>> 2) >= openNanos
+                && stateWord.compareAndSet(word, HALF_OPEN)) {
+            return trial(supplier);
+        }
+        return rejected.retype();
+    }
+
+    public State state() {
+        long state = stateWord.get() & STATE_MASK;
+        return state == CLOSED ? State.CLOSED : state == OPEN ? State.OPEN : State.HALF_OPEN;
+    }
+
+    /**
+     * Failure rate over the current window, 0 if there were no calls.
+     * @return
+     */
+    public double failureRate() {
+        long counts = windowCounts();
+        long calls = counts >>> 32;
+        return calls == 0 ? 0 : (double) (counts & FAILURE_MASK) / calls;
+    }
+
+    /**
+     * Go back to CLOSED with an empty window.
+     */
+    public void reset() {
+        clearWindow();
+        stateWord.set(CLOSED);
+    }
+
+    private <T> TryWrap<T> trial(MySupplier<T> supplier) {
+        //Open again unless the trial comes back right - an Error gets past
+        //TryWrap.of, and must not leave us stuck in HALF_OPEN.
+        boolean passed = false;
+        try {
+            TryWrap<T> result = TryWrap.of(supplier);
+            passed = !result.isLeft();
+            return result;
+        } finally {
+            if (passed) {
+                clearWindow();
+                stateWord.set(CLOSED);
+            } else {
+                stateWord.set(openWord());
+            }
+        }
+    }
+
+    private void recordFailure(long closedWord) {
+        record(ONE_FAILURE);
+        long counts = windowCounts();
+        long calls = counts >>> 32;
+        if (calls >= minimumCalls && (counts & FAILURE_MASK) >= failureRateThreshold * calls) {
+            //Only one thread gets to open it
+            stateWord.compareAndSet(closedWord, openWord());
+        }
+    }
+
+    private void record(long failure) {
+        long epoch = now() / bucketNanos;
+        int i = (int) (epoch % bucketEpochs.length());
+        long bucketEpoch = bucketEpochs.get(i);
+        if (bucketEpoch != epoch && bucketEpochs.compareAndSet(i, bucketEpoch, epoch)) {
+            bucketCounts.set(i, 0);
+        }
+        bucketCounts.getAndAdd(i, ONE_CALL + failure);
+    }
+
+    /**
+     * Sum of all the buckets still in the window, packed the same way.
+     */
+    private long windowCounts() {
+        long oldest = now() / bucketNanos - bucketEpochs.length();
+        long sum = 0;
+        for (int i = 0; i < bucketEpochs.length(); i++) {
+            if (bucketEpochs.get(i) > oldest) {
+                sum += bucketCounts.get(i);
+            }
+        }
+        return sum;
+    }
+
+    private void clearWindow() {
+        for (int i = 0; i < bucketEpochs.length(); i++) {
+            bucketEpochs.set(i, -1);
+            bucketCounts.set(i, 0);
+        }
+    }
+
+    private long openWord() {
+        return (now() << 2) | OPEN;
+    }
+
+    private long now() {
+        return System.nanoTime() - origin;
+    }
+
+    /**
+     * The left you get while the breaker is open.  Each breaker has one
+     * (already in a TryWrap), created up front, so rejecting a call
+     * allocates nothing.  It has no stack trace and suppression is
+     * turned off, so sharing it is safe.
+     */
+    public static final class OpenException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private OpenException() {
+            super("Circuit breaker is open", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ttl.trywrap;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many calls to one dependency can run at once, so a slow
+ * dependency can only tie up that many threads, not the whole pool:
+ *
+ *   private static final TryBulkhead PRICING = TryBulkhead.named("pricing", 10, Duration.ZERO);
+ *
+ *   TryWrap<Price> price = PRICING.call(() -> pricingService.price(item));
+ *
+ * If all the permits are in use, a call either gets a left with a
+ * FullException straight away (maxWait of zero), or waits up to maxWait
+ * for a permit before doing that.
+ *
+ * The permits are a non-fair Semaphore, so taking a free one is a single
+ * CAS.  Waiting time is only measured for calls that actually had to wait.
+ *
+ * @author whynot
+ */
+public class TryBulkhead {
+
+    private static final ConcurrentHashMap<String, TryBulkhead> registry = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int maxConcurrent;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final TryWrap<?> full;
+
+    public TryBulkhead(String name, int maxConcurrent, Duration maxWait) {
+        if (maxConcurrent < 1 || maxWait.isNegative()) {
+            throw new IllegalArgumentException("maxConcurrent: " + maxConcurrent + ", maxWait: " + maxWait);
+        }
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.permits = new Semaphore(maxConcurrent, false);
+        this.full = TryWrap.ofLeft(new FullException(name));
+    }
+
+    /**
+     * The bulkhead with this name, made with these settings if it does not
+     * exist yet.  If it does, the settings are ignored - the first one in
+     * wins.
+     * @param name
+     * @param maxConcurrent
+     * @param maxWait
+     * @return
+     */
+    public static TryBulkhead named(String name, int maxConcurrent, Duration maxWait) {
+        return registry.computeIfAbsent(name, n -> new TryBulkhead(n, maxConcurrent, maxWait));
+    }
+
+    /**
+     * @param name
+     * @return The named bulkhead, or null if there isn't one
+     */
+    public static TryBulkhead lookup(String name) {
+        return registry.get(name);
+    }
+
+    /**
+     * Run the supplier if we can get a permit.
+     * @param supplier
+     * @param <T>
+     * @return The supplier's outcome, a left with a FullException if no
+     * permit came free in time, or a left with an InterruptedException if
+     * we were interrupted while waiting (the interrupt flag is left set)
+     */
+    public <T> TryWrap<T> call(MySupplier<T> supplier) {
+        if (!permits.tryAcquire()) {
+            if (maxWaitNanos == 0) {
+                rejected.increment();
+                return full.retype();
+            }
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return TryWrap.ofLeft(e);
+            } finally {
+                waits.increment();
+                waitNanos.add(System.nanoTime() - start);
+            }
+            if (!acquired) {
+                rejected.increment();
+                return full.retype();
+            }
+        }
+        try {
+            return TryWrap.of(supplier);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * How many calls are running right now.
+     */
+    public int inFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * How many calls did not get a permit.
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * How many calls had to wait for a permit (whether they got one or not).
+     */
+    public long waits() {
+        return waits.sum();
+    }
+
+    public long totalWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "TryBulkhead{" + name + ": inFlight=" + inFlight() + "/" + maxConcurrent
+                + ", rejected=" + rejected() + ", waits=" + waits()
+                + ", totalWaitMillis=" + TimeUnit.NANOSECONDS.toMillis(totalWaitNanos()) + "}";
+    }
+
+    /**
+     * The left you get when the bulkhead is full.  Like
+     * TryBreaker.OpenException, there is one per bulkhead, made up front,
+     * with no stack trace.
+     */
+    public static final class FullException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private FullException(String name) {
+            super("Bulkhead " + name + " is full", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package ttl.trywrap;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the TryWrap from an expensive supplier, per key, so it only
+ * gets called again when the result is too old:
+ *
+ *   TryCache<String, Schema> schemas = new TryCache<>(1000, Duration.ofMinutes(10), Duration.ofSeconds(5));
+ *   TryWrap<Schema> schema = schemas.get(name, () -> registry.fetch(name));
+ *
+ * - Lefts are cached too (negative caching), with their own, usually much
+ *   shorter, time to live.  So a supplier that keeps failing is not called
+ *   on every get, but is retried soon.
+ * - If several threads ask for the same missing key at the same time,
+ *   only one of them calls the supplier.  The others wait for its result.
+ * - Once there are more than maxSize keys, we sweep the map in its own
+ *   (hash) order, a few entries at a time, and drop the least recently
+ *   used of each few, until we are back to maxSize.  Each sweep carries
+ *   on where the last one stopped, so every key gets looked at in turn,
+ *   like a clock.  This is a rough approximation of LRU that needs no
+ *   global list; gets only wait for it when the cache is over maxSize.
+ * - Hits, misses and load times are kept per key (and in total).
+ *
+ * @author whynot
+ */
+public class TryCache<K, T> {
+
+    private static final int EVICTION_SAMPLE = 8;
+
+    private final int maxSize;
+    private final long successTtlNanos;
+    private final long failureTtlNanos;
+
+    private final ConcurrentHashMap<K, Entry> entries = new ConcurrentHashMap<>();
+    private final Counters totals = new Counters();
+    private final LongAdder evictions = new LongAdder();
+    //Where the eviction sweep is up to.  Guarded by sweepLock.
+    private final Object sweepLock = new Object();
+    private Iterator<Map.Entry<K, Entry>> sweep;
+
+    public TryCache(int maxSize, Duration successTtl, Duration failureTtl) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.successTtlNanos = successTtl.toNanos();
+        this.failureTtlNanos = failureTtl.toNanos();
+    }
+
+    /**
+     * Return the cached TryWrap for the key if it is still fresh, else
+     * call the supplier and cache what it gives us.
+     * @param key
+     * @param supplier
+     * @return
+     */
+    public TryWrap<T> get(K key, MySupplier<T> supplier) {
+        for (;;) {
+            long now = System.nanoTime();
+            Entry current = entries.get(key);
+            if (current != null) {
+                if (!current.future.isDone()) {
+                    //Somebody else is loading it.  Wait for them.
+                    hit(current);
+                    return current.future.join();
+                }
+                if (now - current.expiresAt < 0) {
+                    hit(current);
+                    current.lastAccess = now;
+                    return current.future.join();
+                }
+            }
+
+            Entry fresh = new Entry(current == null ? new Counters() : current.counters, now);
+            boolean won = current == null
+                    ? entries.putIfAbsent(key, fresh) == null
+                    : entries.replace(key, current, fresh);
+            if (won) {
+                TryWrap<T> result = load(key, fresh, supplier);
+                if (current == null) {
+                    evictIfNeeded();
+                }
+                return result;
+            }
+            //Lost a race with another thread - go round and look again.
+        }
+    }
+
+    public TryWrap<T> getIfPresent(K key) {
+        Entry current = entries.get(key);
+        if (current == null || !current.future.isDone() || System.nanoTime() - current.expiresAt >= 0) {
+            return null;
+        }
+        return current.future.join();
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Stats for one key, or null if the key is not in the cache.
+     * @param key
+     * @return
+     */
+    public Stats stats(K key) {
+        Entry current = entries.get(key);
+        return current == null ? null : current.counters.snapshot(0);
+    }
+
+    /**
+     * Stats for the whole cache, including keys that have been evicted.
+     * @return
+     */
+    public Stats stats() {
+        return totals.snapshot(evictions.sum());
+    }
+
+    private void hit(Entry entry) {
+        entry.counters.hit();
+        totals.hit();
+    }
+
+    private TryWrap<T> load(K key, Entry entry, MySupplier<T> supplier) {
+        long start = System.nanoTime();
+        TryWrap<T> result;
+        try {
+            result = TryWrap.of(supplier);
+        } catch (Throwable t) {
+            //An Error got out of the supplier.  Don't leave the waiters hanging,
+            //and don't cache it.
+            missed(entry, System.nanoTime() - start);
+            entries.remove(key, entry);
+            entry.future.complete(TryWrap.ofLeft(new CompletionException(t)));
+            throw t;
+        }
+        long end = System.nanoTime();
+        missed(entry, end - start);
+        entry.expiresAt = end + (result.isLeft() ? failureTtlNanos : successTtlNanos);
+        entry.future.complete(result);
+        return result;
+    }
+
+    private void missed(Entry entry, long nanos) {
+        entry.counters.miss(nanos);
+        totals.miss(nanos);
+    }
+
+    private void evictIfNeeded() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        synchronized (sweepLock) {
+            //Give up after one full pass with nothing to evict (all loading).
+            int misses = 0;
+            while (entries.size() > maxSize && misses * EVICTION_SAMPLE <= entries.size()) {
+                K oldestKey = null;
+                Entry oldest = null;
+                for (int i = 0; i < EVICTION_SAMPLE; i++) {
+                    if (sweep == null || !sweep.hasNext()) {
+                        sweep = entries.entrySet().iterator();
+                        if (!sweep.hasNext()) {
+                            break;
+                        }
+                    }
+                    Map.Entry<K, Entry> candidate = sweep.next();
+                    Entry e = candidate.getValue();
+                    if (e.future.isDone() && (oldest == null || e.lastAccess - oldest.lastAccess < 0)) {
+                        oldestKey = candidate.getKey();
+                        oldest = e;
+                    }
+                }
+                if (oldest != null && entries.remove(oldestKey, oldest)) {
+                    evictions.increment();
+                } else {
+                    misses++;
+                }
+            }
+        }
+    }
+
+    private final class Entry {
+        private final CompletableFuture<TryWrap<T>> future = new CompletableFuture<>();
+        private final Counters counters;
+        private volatile long expiresAt;
+        private volatile long lastAccess;
+
+        private Entry(Counters counters, long now) {
+            this.counters = counters;
+            this.lastAccess = now;
+        }
+    }
+
+    private final class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder loadNanos = new LongAdder();
+
+        private void hit() {
+            hits.increment();
+        }
+
+        private void miss(long nanos) {
+            misses.increment();
+            loadNanos.add(nanos);
+        }
+
+        private Stats snapshot(long evictionCount) {
+            return new Stats(hits.sum(), misses.sum(), loadNanos.sum(), evictionCount);
+        }
+    }
+
+    /**
+     * A snapshot of the hit/miss/load numbers.  Every miss is a load.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long totalLoadNanos;
+        private final long evictions;
+
+        private Stats(long hits, long misses, long totalLoadNanos, long evictions) {
+            this.hits = hits;
+            this.misses = misses;
+            this.totalLoadNanos = totalLoadNanos;
+            this.evictions = evictions;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getTotalLoadNanos() {
+            return totalLoadNanos;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        public double getAverageLoadNanos() {
+            return misses == 0 ? 0 : (double) totalLoadNanos / misses;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", misses=" + misses + ", averageLoadNanos="
+                    + (long) getAverageLoadNanos() + ", evictions=" + evictions + "}";
+        }
+    }
+}
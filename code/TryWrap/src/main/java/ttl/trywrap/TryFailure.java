@@ -0,0 +1,42 @@
+package ttl.trywrap;
+
+/**
+ * A lightweight Exception for expected failures.  Throw one from a
+ * MySupplier when the input is bad and you don't need to know where
+ * it happened:
+ *
+ *   TryWrap.of(CapturePolicy.STACKLESS, () -> {
+ *       if (line.isEmpty()) throw TryFailure.of("Empty line");
+ *       return parse(line);
+ *   });
+ *
+ * Whether the stack trace is filled in is decided by the CapturePolicy
+ * in effect when the TryFailure is created.  Without a stack trace it
+ * costs about as much as any other small object.  Any cause you hand
+ * it is kept, so left() and orElseThrow() still give you the whole story.
+ *
+ * @author whynot
+ */
+public class TryFailure extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    protected TryFailure(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+    }
+
+    public static TryFailure of(String message) {
+        return new TryFailure(message, null, CapturePolicy.current().captureStackTrace());
+    }
+
+    public static TryFailure of(String message, Throwable cause) {
+        return new TryFailure(message, cause, CapturePolicy.current().captureStackTrace());
+    }
+
+    /**
+     * Create one with the given policy, regardless of what is in effect.
+     */
+    public static TryFailure of(CapturePolicy policy, String message, Throwable cause) {
+        return new TryFailure(message, cause, policy.captureStackTrace());
+    }
+}
@@ -0,0 +1,358 @@
+package ttl.trywrap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Read a file of lines into TryWraps, one per line, without going
+ * through a Reader:
+ *
+ *   try (Stream<TryWrap<Trade>> trades = TryFiles.lines(path, Trade::parse)) {
+ *       trades.parallel().collect(TryWrapCollectors.partition());
+ *   }
+ *
+ * The file is memory mapped a window at a time, and each line is handed
+ * to the parser as a CharSequence.  A line that is all ASCII (or any
+ * line, in ISO-8859-1) is one char per byte, so the CharSequence looks
+ * straight at the mapped bytes and nothing is copied.  Any other line is
+ * decoded with the Charset into a char buffer that is reused from line
+ * to line.  Either way charAt, length and toString agree.
+ *
+ * - The Charset has to be one where ASCII is one byte per char (UTF-8,
+ *   the ISO-8859 family, ...), since lines are found by looking for the
+ *   '\n' byte.
+ * - The CharSequence is reused for the next line, so don't hang on to
+ *   it.  Keep the toString() if you need the text later.
+ * - Lines end at '\n'.  A '\r' just before it is dropped.
+ * - An IOException (opening or mapping the file) shows up as a left in
+ *   the stream, after which that part of the stream ends.
+ * - Splitting for parallel streams cuts the file at line boundaries.
+ *
+ * Close the stream (try-with-resources) to close the file.  The mapped
+ * windows themselves are let go of by the garbage collector - Java 11
+ * has no public way to unmap them sooner.
+ *
+ * @author whynot
+ */
+public final class TryFiles {
+
+    static final int DEFAULT_WINDOW = 32 * 1024 * 1024;
+    private static final int MIN_SPLIT = 64 * 1024;
+
+    private TryFiles() {
+    }
+
+    public static <T> Stream<TryWrap<T>> lines(Path path, MyFunction<? super CharSequence, ? extends T> parser) {
+        return lines(path, StandardCharsets.UTF_8, DEFAULT_WINDOW, parser);
+    }
+
+    /**
+     * @param path
+     * @param charset What the lines are in.  Must be ASCII compatible.
+     * @param window How much of the file to map at a time.  A line longer
+     *               than this gets a bigger window of its own.
+     * @param parser
+     * @param <T>
+     * @return
+     */
+    public static <T> Stream<TryWrap<T>> lines(Path path, Charset charset, int window,
+                                               MyFunction<? super CharSequence, ? extends T> parser) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        if (!asciiCompatible(charset)) {
+            throw new IllegalArgumentException("Not ASCII compatible, so lines can't be found: " + charset);
+        }
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return Stream.of(TryWrap.ofLeft(e));
+        }
+        long size;
+        try {
+            size = channel.size();
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException closeFailed) {
+                e.addSuppressed(closeFailed);
+            }
+            return Stream.of(TryWrap.ofLeft(e));
+        }
+        LineSpliterator<T> spliterator = new LineSpliterator<>(channel, 0, size, size, window, charset, parser);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private static boolean asciiCompatible(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        byte[] ascii = new byte[128];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        String decoded = new String(ascii, StandardCharsets.US_ASCII);
+        return Arrays.equals(ascii, decoded.getBytes(charset))
+                && decoded.equals(new String(ascii, charset));
+    }
+
+    /**
+     * The lines that start in [pos, end).  The last one may run past end.
+     */
+    private static final class LineSpliterator<T> implements Spliterator<TryWrap<T>> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final int window;
+        private final MyFunction<? super CharSequence, ? extends T> parser;
+        private final ByteLine line;
+
+        private long pos;
+        private long end;
+        private MappedByteBuffer buffer;
+        private long bufferStart;
+
+        private LineSpliterator(FileChannel channel, long pos, long end, long fileSize, int window,
+                                Charset charset, MyFunction<? super CharSequence, ? extends T> parser) {
+            this.channel = channel;
+            this.pos = pos;
+            this.end = end;
+            this.fileSize = fileSize;
+            this.window = window;
+            this.parser = parser;
+            this.line = new ByteLine(charset);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super TryWrap<T>> action) {
+            if (pos >= end) {
+                return false;
+            }
+            int newline;
+            try {
+                newline = findNewline();
+            } catch (IOException e) {
+                pos = end;
+                action.accept(TryWrap.ofLeft(e));
+                return true;
+            }
+            int from = (int) (pos - bufferStart);
+            int to = newline;
+            if (to > from && buffer.get(to - 1) == '\r') {
+                to--;
+            }
+            pos = bufferStart + newline + 1;
+            line.reset(buffer, from, to - from);
+            action.accept(TryWrap.of(() -> parser.apply(line)));
+            return true;
+        }
+
+        /**
+         * Index in buffer of the '\n' ending the line at pos (or of the
+         * end of the file), remapping as needed.
+         */
+        private int findNewline() throws IOException {
+            if (buffer == null || pos < bufferStart || pos >= bufferStart + buffer.limit()) {
+                map(pos, window);
+            }
+            for (;;) {
+                int limit = buffer.limit();
+                for (int i = (int) (pos - bufferStart); i < limit; i++) {
+                    if (buffer.get(i) == '\n') {
+                        return i;
+                    }
+                }
+                if (bufferStart + limit >= fileSize) {
+                    return limit;
+                }
+                //The line runs off the end of the window.  Start a window at the
+                //line, and if that's not enough, keep doubling it.
+                if (bufferStart != pos) {
+                    map(pos, window);
+                } else if (limit == Integer.MAX_VALUE) {
+                    throw new IOException("Line at " + pos + " is longer than " + Integer.MAX_VALUE + " bytes");
+                } else {
+                    map(pos, (int) Math.min(Integer.MAX_VALUE, 2L * limit));
+                }
+            }
+        }
+
+        private void map(long start, int size) throws IOException {
+            bufferStart = start;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size, fileSize - start));
+        }
+
+        /**
+         * Split at the first line boundary after the middle.  We give away
+         * the first half, and keep the second.
+         */
+        @Override
+        public Spliterator<TryWrap<T>> trySplit() {
+            if (end - pos < 2 * MIN_SPLIT) {
+                return null;
+            }
+            long cut;
+            try {
+                cut = nextLineStart(pos + (end - pos) / 2);
+            } catch (IOException e) {
+                return null;
+            }
+            if (cut <= pos || cut >= end) {
+                return null;
+            }
+            LineSpliterator<T> prefix = new LineSpliterator<>(channel, pos, cut, fileSize, window,
+                    line.charset, parser);
+            pos = cut;
+            return prefix;
+        }
+
+        private long nextLineStart(long from) throws IOException {
+            ByteBuffer scratch = ByteBuffer.allocate(8192);
+            long at = from;
+            while (at < end) {
+                scratch.clear();
+                int read = channel.read(scratch, at);
+                if (read <= 0) {
+                    return -1;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (scratch.get(i) == '\n') {
+                        return at + i + 1;
+                    }
+                }
+                at += read;
+            }
+            return -1;
+        }
+
+        @Override
+        public long estimateSize() {
+            //Bytes, not lines.  Good enough for deciding how to split.
+            return end - pos;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+
+    /**
+     * A line as a CharSequence.  While it is one char per byte it reads the
+     * buffer directly; otherwise it is decoded into chars.
+     */
+    private static final class ByteLine implements CharSequence {
+        private final Charset charset;
+        private final boolean latin1;
+        private ByteBuffer buffer;
+        private int from;
+        private int length;
+
+        //Only for lines that aren't one char per byte; made the first time
+        //one shows up.
+        private CharsetDecoder decoder;
+        private CharBuffer chars;
+        private boolean decoded;
+
+        private ByteLine(Charset charset) {
+            this.charset = charset;
+            this.latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+        }
+
+        private ByteLine reset(ByteBuffer buffer, int from, int length) {
+            this.buffer = buffer;
+            this.from = from;
+            this.length = length;
+            decoded = false;
+            if (!latin1) {
+                for (int i = from; i < from + length; i++) {
+                    if (buffer.get(i) < 0) {
+                        decode();
+                        break;
+                    }
+                }
+            }
+            return this;
+        }
+
+        private void decode() {
+            if (decoder == null) {
+                decoder = charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            int needed = (int) Math.ceil(length * (double) decoder.maxCharsPerByte());
+            if (chars == null || chars.capacity() < needed) {
+                chars = CharBuffer.allocate(needed);
+            }
+            ByteBuffer in = buffer.duplicate();
+            in.limit(from + length).position(from);
+            chars.clear();
+            decoder.reset();
+            decoder.decode(in, chars, true);
+            decoder.flush(chars);
+            chars.flip();
+            decoded = true;
+        }
+
+        @Override
+        public int length() {
+            return decoded ? chars.length() : length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (decoded) {
+                return chars.charAt(index);
+            }
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+            }
+            return (char) (buffer.get(from + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (decoded) {
+                return chars.subSequence(start, end);
+            }
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+            }
+            return new ByteLine(charset).reset(buffer, from + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            if (decoded) {
+                return chars.toString();
+            }
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(from);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package ttl.trywrap;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A concurrency limit that finds its own level.  Like TryBulkhead, calls
+ * over the limit get a left straight away - but instead of being fixed,
+ * the limit moves with how the dependency is coping:
+ *
+ *   private static final TryLimiter INVENTORY = new TryLimiter(TryLimiter.vegas(20, 1, 500));
+ *
+ *   TryWrap<Stock> stock = INVENTORY.call(() -> inventory.stock(sku));
+ *
+ * Every finished call is a sample (its latency, and whether it was a
+ * left) for the Algorithm, which gives back the new limit:
+ *
+ * - aimd: add 1 while calls are fast and working, cut by a ratio on a
+ *   left or a call slower than the threshold.  Simple and robust, but it
+ *   only backs off once things are already going wrong.
+ * - vegas: keep track of the best latency seen (no queueing), and compare
+ *   each sample to it.  Growing latency means requests are queueing at
+ *   the dependency, so back off before anything times out.
+ *
+ * Nothing here takes a lock.  Taking a slot is a CAS on the in-flight
+ * count, and each sample moves the limit with a CAS from the limit the
+ * Algorithm was given to the one it gave back, trying again if another
+ * sample got in first - so a limit worked out from an old one is never
+ * published over a newer one.
+ *
+ * @author whynot
+ */
+public class TryLimiter {
+
+    /**
+     * Works out the limit from samples.  Called for each finished call,
+     * from whichever thread made it, so maybe from several threads at
+     * once, and again for the same sample if the limit changed under it.
+     */
+    public interface Algorithm {
+        int initialLimit();
+
+        /**
+         * @param limit The limit now
+         * @param rttNanos How long the call took
+         * @param inFlight How many calls were in flight when it started (including it)
+         * @param failed Whether it was a left
+         * @return The new limit
+         */
+        int onSample(int limit, long rttNanos, int inFlight, boolean failed);
+    }
+
+    private final Algorithm algorithm;
+    private final LongSupplier clock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger limit;
+
+    private final LongAdder rejected = new LongAdder();
+    private final TryWrap<?> overLimit = TryWrap.ofLeft(new LimitExceededException());
+
+    public TryLimiter(Algorithm algorithm) {
+        this(algorithm, System::nanoTime);
+    }
+
+    /**
+     * With a clock of our own, for simulations.
+     */
+    TryLimiter(Algorithm algorithm, LongSupplier clock) {
+        this.algorithm = algorithm;
+        this.clock = clock;
+        this.limit = new AtomicInteger(algorithm.initialLimit());
+    }
+
+    /**
+     * Run the supplier, unless we are at the limit.
+     * @param supplier
+     * @param <T>
+     * @return The supplier's outcome, or a left with a LimitExceededException
+     */
+    public <T> TryWrap<T> call(MySupplier<T> supplier) {
+        int started = acquire();
+        if (started == 0) {
+            return overLimit.retype();
+        }
+        long start = clock.getAsLong();
+        //An Error gets past TryWrap.of.  It still gives back the slot, as a failure.
+        boolean failed = true;
+        try {
+            TryWrap<T> result = TryWrap.of(supplier);
+            failed = result.isLeft();
+            return result;
+        } finally {
+            release(start, started, failed);
+        }
+    }
+
+    /**
+     * For callers that can't wrap the work in a supplier (e.g. it finishes
+     * in a callback): take a slot now, and release it when done.
+     * @return A Permit, or null if we are at the limit
+     */
+    public Permit tryAcquire() {
+        int started = acquire();
+        return started == 0 ? null : new Permit(clock.getAsLong(), started);
+    }
+
+    public int limit() {
+        return limit.get();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the in-flight count including us, or 0 if we are at the limit
+     */
+    private int acquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                rejected.increment();
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private void release(long start, int started, boolean failed) {
+        inFlight.decrementAndGet();
+        long rtt = clock.getAsLong() - start;
+        for (;;) {
+            int current = limit.get();
+            int next = algorithm.onSample(current, rtt, started, failed);
+            if (next == current || limit.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A slot taken with tryAcquire.  Only the first release counts.
+     */
+    public final class Permit {
+        private final long start;
+        private final int started;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long start, int started) {
+            this.start = start;
+            this.started = started;
+        }
+
+        /**
+         * Give the slot back, and the call's outcome to the Algorithm.
+         * @param failed Whether the call failed
+         * @return false if the permit had already been released
+         */
+        public boolean release(boolean failed) {
+            if (!released.compareAndSet(false, true)) {
+                return false;
+            }
+            TryLimiter.this.release(start, started, failed);
+            return true;
+        }
+    }
+
+    /**
+     * Additive increase, multiplicative decrease.
+     * @param initial Starting limit
+     * @param min Never go below this
+     * @param max Never go above this
+     * @param backoffRatio Multiply the limit by this on a bad sample, e.g. 0.9
+     * @param slowCall A call slower than this counts as bad, like a left
+     * @return
+     */
+    public static Algorithm aimd(int initial, int min, int max, double backoffRatio, Duration slowCall) {
+        checkBounds(initial, min, max);
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be in (0, 1): " + backoffRatio);
+        }
+        return new Aimd(initial, min, max, backoffRatio, slowCall.toNanos());
+    }
+
+    /**
+     * Vegas style: back off as latency rises over the best seen.
+     * @param initial Starting limit
+     * @param min Never go below this
+     * @param max Never go above this
+     * @return
+     */
+    public static Algorithm vegas(int initial, int min, int max) {
+        checkBounds(initial, min, max);
+        return new Vegas(initial, min, max);
+    }
+
+    private static void checkBounds(int initial, int min, int max) {
+        if (min < 1 || initial < min || max < initial) {
+            throw new IllegalArgumentException("Need 1 <= min <= initial <= max: " + min + ", " + initial + ", " + max);
+        }
+    }
+
+    private static final class Aimd implements Algorithm {
+        private final int initial;
+        private final int min;
+        private final int max;
+        private final double backoffRatio;
+        private final long slowNanos;
+
+        private Aimd(int initial, int min, int max, double backoffRatio, long slowNanos) {
+            this.initial = initial;
+            this.min = min;
+            this.max = max;
+            this.backoffRatio = backoffRatio;
+            this.slowNanos = slowNanos;
+        }
+
+        @Override
+        public int initialLimit() {
+            return initial;
+        }
+
+        @Override
+        public int onSample(int limit, long rttNanos, int inFlight, boolean failed) {
+            if (failed || rttNanos > slowNanos) {
+                //A call that started with more in flight than the limit allows now
+                //is news from before we last backed off.  Don't back off for it again.
+                if (inFlight <= limit) {
+                    return Math.max(min, (int) (limit * backoffRatio));
+                }
+            } else if (inFlight * 2 >= limit) {
+                //Only grow if we are using the limit we have.
+                return Math.min(max, limit + 1);
+            }
+            return limit;
+        }
+    }
+
+    private static final class Vegas implements Algorithm {
+        //Forget the best latency now and then, in case the dependency got slower for good.
+        private static final int PROBE_EVERY = 5000;
+
+        private final int initial;
+        private final int min;
+        private final int max;
+        private final AtomicLong minRtt = new AtomicLong(Long.MAX_VALUE);
+        //Not atomic: a lost update only puts the next probe off by a sample.
+        private int samples;
+
+        private Vegas(int initial, int min, int max) {
+            this.initial = initial;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        public int initialLimit() {
+            return initial;
+        }
+
+        @Override
+        public int onSample(int limit, long rttNanos, int inFlight, boolean failed) {
+            long best = minRtt.get();
+            int n = samples + 1;
+            samples = n;
+            if (rttNanos > 0 && (rttNanos < best || n % PROBE_EVERY == 0)) {
+                minRtt.compareAndSet(best, rttNanos);
+                best = minRtt.get();
+            }
+            double log = Math.max(1, Math.log10(limit));
+            //Steps of at least 1, since the limit is whole calls.
+            int step = (int) log;
+            int next = limit;
+            if (failed) {
+                next = limit - step;
+            } else if (inFlight * 2 >= limit) {
+                //How many calls are waiting in a queue, rather than being worked on.
+                double queue = limit * (1 - (double) best / Math.max(best, rttNanos));
+                if (queue < 3 * log) {
+                    next = limit + step;
+                } else if (queue > 6 * log) {
+                    next = limit - step;
+                }
+            }
+            return Math.max(min, Math.min(max, next));
+        }
+    }
+
+    /**
+     * The left you get when over the limit.  One per limiter, no stack trace.
+     */
+    public static final class LimitExceededException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private LimitExceededException() {
+            super("Concurrency limit reached", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package ttl.trywrap;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Somewhere to send lefts that does not make the sender wait for the
+ * console:
+ *
+ *   TryLogSink sink = new TryLogSink(1024, Duration.ofSeconds(10), System.err::println);
+ *   ...
+ *   TryWrap.of(() -> handle(request)).orElseConsume(sink);
+ *
+ * accept() just puts the Exception in a bounded ring buffer - a CAS and a
+ * write, with no locks.  One background thread takes them out, formats
+ * them (stack trace and all) and hands the text to the output.
+ *
+ * - If the ring is full, the Exception is dropped and counted.  A storm of
+ *   failures costs the workers nothing extra, it just loses log lines.
+ * - The same failure (the same class, thrown from the same place) is only
+ *   written once per dedupe window.  The next time it gets written, it
+ *   says how many repeats were skipped.  The message is left out, since
+ *   it often has ids or times in it - unless there is no stack trace
+ *   (e.g. a stackless TryFailure), when it is all there is to go on.
+ * - A null is dropped, like anything else that can't be logged.
+ *
+ * close() writes out whatever is left and stops the thread.
+ *
+ * @author whynot
+ */
+public class TryLogSink implements MyConsumer<Exception>, AutoCloseable {
+
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    //Set in tail by the drain thread when it stops.  Makes the ring look
+    //full, so nothing more can be claimed.
+    private static final long SEALED = 1L << 62;
+    private static final int MAX_KEYS = 1024;
+
+    private final AtomicReferenceArray<Exception> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    private final long dedupeNanos;
+    private final MyConsumer<String> out;
+    private final Thread drainer;
+    private volatile boolean closed;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deduped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    //Only touched by the drain thread.
+    private final Map<String, Seen> seen = new HashMap<>();
+
+    /**
+     * Write to System.err.
+     */
+    public TryLogSink(int capacity, Duration dedupeWindow) {
+        this(capacity, dedupeWindow, System.err::println);
+    }
+
+    /**
+     * @param capacity Size of the ring, rounded up to a power of 2
+     * @param dedupeWindow Write the same failure at most once this often
+     * @param out Gets each formatted entry.  Called from the drain thread only.
+     */
+    public TryLogSink(int capacity, Duration dedupeWindow, MyConsumer<String> out) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Bad capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.dedupeNanos = dedupeWindow.toNanos();
+        this.out = out;
+        this.drainer = new Thread(this::drainLoop, "TryLogSink-drain");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Queue the Exception for logging, or drop it if the ring is full.
+     * Never blocks.
+     * @param e
+     */
+    @Override
+    public void accept(Exception e) {
+        //A null in the ring would look like a slot not written yet.
+        if (closed || e == null) {
+            dropped.increment();
+            return;
+        }
+        for (;;) {
+            long t = tail.get();
+            if (t - head.get() >= ring.length()) {
+                dropped.increment();
+                return;
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                ring.lazySet((int) (t & mask), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * How many failures were lost because the ring was full, or we were
+     * closed, or they were null.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * How many failures were not written because they repeated one that was.
+     */
+    public long deduped() {
+        return deduped.sum();
+    }
+
+    /**
+     * How many entries have gone to the output.
+     */
+    public long written() {
+        return written.sum();
+    }
+
+    /**
+     * Stop taking failures, write out what is queued (and the counts of any
+     * repeats still being held back), and stop the drain thread.  A
+     * failure accepted while we close is either written or counted as
+     * dropped, never lost.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(drainer);
+        drainer.join();
+    }
+
+    private void drainLoop() {
+        for (;;) {
+            boolean wasClosed = closed;
+            if (!drain()) {
+                if (wasClosed && seal()) {
+                    flushRepeats();
+                    return;
+                }
+                if (!wasClosed) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop any more slots being claimed, if every claimed slot has been
+     * drained.  A producer that got past the closed check has either
+     * claimed its slot already (so we drain it first), or will find the
+     * ring "full" and count a drop.
+     * @return false if there is more to drain
+     */
+    private boolean seal() {
+        long t = tail.get();
+        return t == head.get() && tail.compareAndSet(t, t | SEALED);
+    }
+
+    /**
+     * Take out everything that is there.
+     * @return false if there was nothing
+     */
+    private boolean drain() {
+        boolean any = false;
+        long h = head.get();
+        while (h < tail.get()) {
+            int i = (int) (h & mask);
+            Exception e = ring.get(i);
+            if (e == null) {
+                //Claimed, but not written yet.
+                Thread.onSpinWait();
+                continue;
+            }
+            ring.lazySet(i, null);
+            head.lazySet(++h);
+            any = true;
+            log(e);
+        }
+        return any;
+    }
+
+    private void log(Exception e) {
+        long now = System.nanoTime();
+        String key = keyOf(e);
+        Seen s = seen.get(key);
+        if (s != null && now - s.lastWritten < dedupeNanos) {
+            s.repeats++;
+            deduped.increment();
+            return;
+        }
+        long repeats = s == null ? 0 : s.repeats;
+        if (s == null) {
+            if (seen.size() >= MAX_KEYS) {
+                forgetOld(now);
+            }
+            s = new Seen();
+            seen.put(key, s);
+        }
+        s.lastWritten = now;
+        s.repeats = 0;
+        write(repeats == 0 ? format(e) : format(e) + "(repeated " + repeats + " times since last logged)");
+    }
+
+    private void flushRepeats() {
+        for (Map.Entry<String, Seen> entry : seen.entrySet()) {
+            writeRepeats(entry.getKey(), entry.getValue());
+        }
+        seen.clear();
+    }
+
+    private void forgetOld(long now) {
+        Iterator<Map.Entry<String, Seen>> it = seen.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Seen> entry = it.next();
+            if (now - entry.getValue().lastWritten >= dedupeNanos) {
+                writeRepeats(entry.getKey(), entry.getValue());
+                it.remove();
+            }
+        }
+        if (seen.size() >= MAX_KEYS) {
+            //All recent, so just start again.  Worst case, a few extra lines.
+            flushRepeats();
+        }
+    }
+
+    /**
+     * Say how many repeats were held back, before we forget about them.
+     */
+    private void writeRepeats(String key, Seen s) {
+        if (s.repeats > 0) {
+            write(key + " (repeated " + s.repeats + " more times)");
+            s.repeats = 0;
+        }
+    }
+
+    private void write(String text) {
+        try {
+            out.accept(text);
+            written.increment();
+        } catch (Throwable t) {
+            //Can't log a failure to log.  Errors too: if the drain thread died
+            //the ring would fill up for good, and close() would lose it all.
+        }
+    }
+
+    private static String keyOf(Exception e) {
+        StackTraceElement[] trace = e.getStackTrace();
+        if (trace.length == 0) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+        return e.getClass().getName() + " at " + trace[0];
+    }
+
+    private static String format(Exception e) {
+        StringWriter sw = new StringWriter();
+        e.printStackTrace(new PrintWriter(sw));
+        return sw.toString();
+    }
+
+    private static final class Seen {
+        private long lastWritten;
+        private long repeats;
+    }
+}
@@ -0,0 +1,120 @@
+package ttl.trywrap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of TryProbes, one per tag.  Metrics are off until you
+ * turn them on:
+ *
+ *   TryMetrics.setEnabled(true);
+ *   TryMetrics.registerMBean();      //optional, to see them in JConsole/VisualVM
+ *   ...
+ *   TryMetrics.snapshot().values().forEach(System.out::println);
+ *
+ * @author whynot
+ */
+public final class TryMetrics {
+
+    public static final String MBEAN_NAME = "ttl.trywrap:type=TryMetrics";
+
+    static volatile boolean enabled;
+
+    private static final ConcurrentHashMap<String, TryProbe> probes = new ConcurrentHashMap<>();
+
+    private TryMetrics() {
+    }
+
+    /**
+     * The probe for a tag, made the first time it is asked for.  Look it up
+     * once and keep it, rather than calling this on every operation.
+     * @param tag
+     * @return
+     */
+    public static TryProbe probe(String tag) {
+        return probes.computeIfAbsent(tag, TryProbe::new);
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * @return tag -> snapshot, sorted by tag
+     */
+    public static Map<String, TryProbe.Snapshot> snapshot() {
+        Map<String, TryProbe.Snapshot> result = new TreeMap<>();
+        probes.forEach((tag, probe) -> result.put(tag, probe.snapshot()));
+        return result;
+    }
+
+    /**
+     * Zero every probe.  The probes themselves stay registered.
+     */
+    public static void reset() {
+        probes.values().forEach(TryProbe::reset);
+    }
+
+    /**
+     * Register the MXBean with the platform MBean server.  Calling it
+     * again does nothing.
+     */
+    public static void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(MBEAN_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            //Already there.
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + MBEAN_NAME, e);
+        }
+    }
+
+    private static final class Bean implements TryMetricsMXBean {
+
+        @Override
+        public boolean isEnabled() {
+            return TryMetrics.isEnabled();
+        }
+
+        @Override
+        public void setEnabled(boolean on) {
+            TryMetrics.setEnabled(on);
+        }
+
+        @Override
+        public Map<String, Long> getCounts() {
+            Map<String, Long> result = new TreeMap<>();
+            for (TryProbe.Snapshot s : snapshot().values()) {
+                for (TryProbe.Op op : TryProbe.Op.values()) {
+                    for (TryProbe.Outcome outcome : TryProbe.Outcome.values()) {
+                        result.put(s.getTag() + "." + op + "." + outcome, s.count(op, outcome));
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Map<String, Long> getFailuresByClass() {
+            Map<String, Long> result = new TreeMap<>();
+            for (TryProbe.Snapshot s : snapshot().values()) {
+                s.getFailuresByClass().forEach((c, count) -> result.put(s.getTag() + ":" + c.getName(), count));
+            }
+            return result;
+        }
+
+        @Override
+        public void reset() {
+            TryMetrics.reset();
+        }
+    }
+}
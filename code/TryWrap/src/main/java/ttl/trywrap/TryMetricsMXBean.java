@@ -0,0 +1,27 @@
+package ttl.trywrap;
+
+import java.util.Map;
+
+/**
+ * What TryMetrics shows over JMX, under ttl.trywrap:type=TryMetrics.
+ *
+ * @author whynot
+ */
+public interface TryMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return "tag.op.outcome" -> count, e.g. "orders.parse.MAP.LEFT" -> 12
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * @return "tag:exception class" -> count of lefts
+     */
+    Map<String, Long> getFailuresByClass();
+
+    void reset();
+}
@@ -0,0 +1,203 @@
+package ttl.trywrap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what happens at one place in the code (a call-site tag).  Get
+ * one from TryMetrics, keep it in a static final, and send the TryWrap
+ * operations you want counted through it:
+ *
+ *   private static final TryProbe PARSE = TryMetrics.probe("orders.parse");
+ *
+ *   TryWrap<Order> order = PARSE.of(() -> parse(line));
+ *   TryWrap<Price> price = PARSE.map(order, this::price);
+ *
+ * Each op counts its outcome as RIGHT, LEFT or EMPTY.  A TryWrap whose
+ * right is null counts as EMPTY, since right() treats it as one.  A
+ * SoloTry has no Empty, so a Success of null counts as RIGHT.  Lefts are
+ * also counted by Exception class.  The counters are LongAdders, so there
+ * are no locks, and counting a right or an Empty allocates nothing.
+ *
+ * When TryMetrics is disabled the probe just does the operation.
+ *
+ * @author whynot
+ */
+public final class TryProbe {
+
+    public enum Op {
+        OF, MAP, FLAT_MAP, FILTER
+    }
+
+    public enum Outcome {
+        RIGHT, LEFT, EMPTY
+    }
+
+    private static final int OUTCOMES = Outcome.values().length;
+
+    private static final MyFunction<Object, Exception> NO_FAILURE = v -> null;
+    private static final MyFunction<Exception, Exception> FAILURE = e -> e;
+
+    private final String tag;
+    private final LongAdder[] counts = new LongAdder[Op.values().length * OUTCOMES];
+    private final ConcurrentHashMap<Class<? extends Exception>, LongAdder> byClass = new ConcurrentHashMap<>();
+
+    TryProbe(String tag) {
+        this.tag = tag;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public <T> TryWrap<T> of(MySupplier<T> supplier) {
+        return record(Op.OF, TryWrap.of(supplier));
+    }
+
+    public <T, R> TryWrap<R> map(TryWrap<T> tryWrap, MyFunction<? super T, ? extends R> function) {
+        return record(Op.MAP, tryWrap.map(function));
+    }
+
+    public <T, R> TryWrap<R> flatMap(TryWrap<T> tryWrap, MyFunction<? super T, TryWrap<R>> function) {
+        return record(Op.FLAT_MAP, tryWrap.flatMap(function));
+    }
+
+    public <T> TryWrap<T> filter(TryWrap<T> tryWrap, MyPredicate<? super T> predicate) {
+        return record(Op.FILTER, tryWrap.filter(predicate));
+    }
+
+    /**
+     * Count a TryWrap you got some other way.
+     * @param op
+     * @param tryWrap
+     * @param <T>
+     * @return the same TryWrap
+     */
+    public <T> TryWrap<T> record(Op op, TryWrap<T> tryWrap) {
+        if (TryMetrics.enabled) {
+            if (tryWrap.isLeft()) {
+                left(op, tryWrap.left());
+            } else {
+                counts[index(op, tryWrap.isRight() ? Outcome.RIGHT : Outcome.EMPTY)].increment();
+            }
+        }
+        return tryWrap;
+    }
+
+    /**
+     * Count a SoloTry.
+     * @param op
+     * @param soloTry
+     * @param <T>
+     * @return the same SoloTry
+     */
+    public <T> SoloTry<T> record(Op op, SoloTry<T> soloTry) {
+        if (TryMetrics.enabled) {
+            //fold, rather than catching what get() throws, so a Failure
+            //costs no throw.
+            Exception failure;
+            try {
+                failure = soloTry.fold(NO_FAILURE, FAILURE);
+            } catch (Exception e) {
+                failure = e;
+            }
+            if (failure == null) {
+                counts[index(op, Outcome.RIGHT)].increment();
+            } else {
+                left(op, failure);
+            }
+        }
+        return soloTry;
+    }
+
+    public long count(Op op, Outcome outcome) {
+        return counts[index(op, outcome)].sum();
+    }
+
+    public Snapshot snapshot() {
+        long[] values = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            values[i] = counts[i].sum();
+        }
+        Map<Class<? extends Exception>, Long> failures = new HashMap<>();
+        byClass.forEach((c, adder) -> failures.put(c, adder.sum()));
+        return new Snapshot(tag, values, Collections.unmodifiableMap(failures));
+    }
+
+    void reset() {
+        for (LongAdder adder : counts) {
+            adder.reset();
+        }
+        byClass.clear();
+    }
+
+    private void left(Op op, Exception e) {
+        counts[index(op, Outcome.LEFT)].increment();
+        Class<? extends Exception> c = e.getClass();
+        LongAdder adder = byClass.get(c);
+        if (adder == null) {
+            adder = byClass.computeIfAbsent(c, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    private static int index(Op op, Outcome outcome) {
+        return op.ordinal() * OUTCOMES + outcome.ordinal();
+    }
+
+    /**
+     * The counts for one probe at some point in time.
+     */
+    public static final class Snapshot {
+        private final String tag;
+        private final long[] counts;
+        private final Map<Class<? extends Exception>, Long> failuresByClass;
+
+        private Snapshot(String tag, long[] counts, Map<Class<? extends Exception>, Long> failuresByClass) {
+            this.tag = tag;
+            this.counts = counts;
+            this.failuresByClass = failuresByClass;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public long count(Op op, Outcome outcome) {
+            return counts[index(op, outcome)];
+        }
+
+        public long total(Outcome outcome) {
+            long sum = 0;
+            for (Op op : Op.values()) {
+                sum += count(op, outcome);
+            }
+            return sum;
+        }
+
+        public Map<Class<? extends Exception>, Long> getFailuresByClass() {
+            return failuresByClass;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(tag).append(":");
+            for (Op op : Op.values()) {
+                long r = count(op, Outcome.RIGHT);
+                long l = count(op, Outcome.LEFT);
+                long e = count(op, Outcome.EMPTY);
+                if (r + l + e > 0) {
+                    sb.append(' ').append(op).append("[right=").append(r)
+                            .append(", left=").append(l).append(", empty=").append(e).append(']');
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
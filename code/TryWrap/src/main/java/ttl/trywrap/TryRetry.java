@@ -0,0 +1,118 @@
+package ttl.trywrap;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The machinery behind TryWrap.retrying.
+ *
+ * @author whynot
+ */
+final class TryRetry {
+
+    private TryRetry() {
+    }
+
+    /**
+     * Retry in the calling thread, sleeping between attempts.  If we are
+     * interrupted while waiting, or the supplier was (its left is an
+     * InterruptedException), we stop, leave the interrupt flag set, and
+     * return the last left.
+     */
+    static <T> TryWrap<T> retrying(RetryPolicy policy, MySupplier<T> supplier) {
+        policy.budget().recordCall();
+        long delay = 0;
+        for (int attempt = 1; ; attempt++) {
+            TryWrap<T> result = TryWrap.of(supplier);
+            if (!result.isLeft() || !policy.shouldRetry(result.left(), attempt)) {
+                restoreInterrupt(result);
+                return result;
+            }
+            delay = policy.nextDelayNanos(delay);
+            long deadline = System.nanoTime() + delay;
+            for (long left = delay; left > 0; left = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(left);
+                if (Thread.currentThread().isInterrupted()) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retry on the scheduler.  Each attempt runs in a scheduler thread, and
+     * the waits are scheduled delays, so no thread sits in a sleep.  An
+     * InterruptedException from the supplier is not retried, but it only
+     * comes back as the left: the scheduler thread is not the caller's,
+     * so its interrupt flag is left alone.
+     */
+    static <T> AsyncTryWrap<T> retryingAsync(RetryPolicy policy, MySupplier<T> supplier,
+                                             ScheduledExecutorService scheduler) {
+        policy.budget().recordCall();
+        CompletableFuture<TryWrap<T>> done = new CompletableFuture<>();
+        schedule(new Attempt<>(policy, supplier, scheduler, done), 0);
+        return AsyncTryWrap.wrap(done);
+    }
+
+    private static <T> void schedule(Attempt<T> attempt, long delayNanos) {
+        try {
+            attempt.scheduler.schedule(attempt, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            attempt.done.complete(attempt.last != null ? attempt.last : TryWrap.ofLeft(e));
+        }
+    }
+
+    /**
+     * TryWrap.of caught an InterruptedException, which cleared the flag.
+     * Put it back, for the caller.  Only for retrying in the calling
+     * thread.
+     */
+    private static void restoreInterrupt(TryWrap<?> result) {
+        if (result.isLeft() && result.left() instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Attempt<T> implements Runnable {
+        private final RetryPolicy policy;
+        private final MySupplier<T> supplier;
+        private final ScheduledExecutorService scheduler;
+        private final CompletableFuture<TryWrap<T>> done;
+        private int attempt;
+        private long delay;
+        private TryWrap<T> last;
+
+        private Attempt(RetryPolicy policy, MySupplier<T> supplier, ScheduledExecutorService scheduler,
+                        CompletableFuture<TryWrap<T>> done) {
+            this.policy = policy;
+            this.supplier = supplier;
+            this.scheduler = scheduler;
+            this.done = done;
+        }
+
+        /**
+         * Only one attempt runs at a time, and each one schedules the next,
+         * so the fields are handed from thread to thread by the scheduler.
+         */
+        @Override
+        public void run() {
+            try {
+                attempt++;
+                last = TryWrap.of(supplier);
+                if (!last.isLeft() || !policy.shouldRetry(last.left(), attempt)) {
+                    done.complete(last);
+                    return;
+                }
+                delay = policy.nextDelayNanos(delay);
+                schedule(this, delay);
+            } catch (Throwable t) {
+                //An Error from the supplier.  Nobody else will complete done.
+                done.completeExceptionally(t);
+                throw t;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ttl.trywrap;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The machinery behind the TryWrap methods that run suppliers on
+ * other threads.
+ *
+ * @author whynot
+ */
+final class TryTasks {
+
+    private static volatile Executor withinExecutor;
+
+    private TryTasks() {
+    }
+
+    /**
+     * The executor used by the ofWithin methods when none is given.  By
+     * default it is a cached pool of daemon threads, so threads freed up
+     * by cancelled work get reused, and idle ones go away.
+     */
+    static Executor withinExecutor() {
+        Executor executor = withinExecutor;
+        if (executor == null) {
+            synchronized (TryTasks.class) {
+                executor = withinExecutor;
+                if (executor == null) {
+                    executor = withinExecutor = defaultWithinExecutor();
+                }
+            }
+        }
+        return executor;
+    }
+
+    static void setWithinExecutor(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        withinExecutor = executor;
+    }
+
+    private static Executor defaultWithinExecutor() {
+        AtomicInteger counter = new AtomicInteger(0);
+        return Executors.newCachedThreadPool(r -> {
+            Thread th = new Thread(r, "TryWrap-within-" + counter.getAndIncrement());
+            th.setDaemon(true);
+            return th;
+        });
+    }
+
+    static <T> TryWrap<T> within(Executor executor, Duration deadline,
+                                 MyFunction<CancellationToken, T> work) {
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
+        CancellationToken token = new CancellationToken();
+        FutureTask<TryWrap<T>> task = new FutureTask<>(() -> TryWrap.of(() -> work.apply(token)));
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            return TryWrap.ofLeft(e);
+        }
+        return await(task, deadlineAt, deadline, token);
+    }
+
+    static <T> List<TryWrap<T>> ofAll(Executor executor, Duration deadline,
+                                      Iterable<? extends MySupplier<T>> suppliers) {
+        long deadlineAt = System.nanoTime() + deadline.toNanos();
+
+        List<Future<TryWrap<T>>> futures = new ArrayList<>();
+        for (MySupplier<T> supplier : suppliers) {
+            FutureTask<TryWrap<T>> task = new FutureTask<>(() -> TryWrap.of(supplier));
+            try {
+                executor.execute(task);
+                futures.add(task);
+            } catch (RejectedExecutionException e) {
+                futures.add(CompletableFuture.completedFuture(TryWrap.ofLeft(e)));
+            }
+        }
+
+        List<TryWrap<T>> results = new ArrayList<>(futures.size());
+        for (Future<TryWrap<T>> future : futures) {
+            results.add(await(future, deadlineAt, deadline, null));
+        }
+        return results;
+    }
+
+    /**
+     * Wait for the future until deadlineAt (a System.nanoTime).  If it
+     * is not done by then, cancel it, interrupting the thread running it,
+     * and cancel the token if there is one.
+     */
+    static <T> TryWrap<T> await(Future<TryWrap<T>> future, long deadlineAt, Duration deadline,
+                                CancellationToken token) {
+        try {
+            long remaining = Math.max(0, deadlineAt - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancel(future, token);
+            return TryWrap.ofLeft(new TimeoutException("Deadline of " + deadline + " passed"));
+        } catch (ExecutionException e) {
+            return TryWrap.ofLeft(AsyncTryWrap.unwrap(e));
+        } catch (CancellationException e) {
+            return TryWrap.ofLeft(e);
+        } catch (InterruptedException e) {
+            //We have been asked to stop, so stop the work as well.
+            cancel(future, token);
+            Thread.currentThread().interrupt();
+            return TryWrap.ofLeft(e);
+        }
+    }
+
+    private static void cancel(Future<?> future, CancellationToken token) {
+        if (token != null) {
+            token.cancel();
+        }
+        future.cancel(true);
+    }
+}
@@ -0,0 +1,101 @@
+package ttl.trywrap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The machinery behind TryWrap.traverseParallel.
+ *
+ * The list is cut in halves until the pieces are small, and each piece
+ * writes its results straight into its own slots of one array, so there
+ * is no merging at the end.  All the pieces share the first failure.
+ * Once it is set, pieces that have not started return at once, and
+ * running ones stop at their next check, so a bad batch gives up quickly.
+ *
+ * @author whynot
+ */
+final class TryTraverse<A, B> extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MIN_CHUNK = 1024;
+    private static final int CHECK_EVERY = 64;
+
+    private final List<? extends A> input;
+    private final Object[] output;
+    private final MyFunction<? super A, ? extends B> function;
+    private final AtomicReference<Exception> failure;
+    private final int chunk;
+    private final int from;
+    private final int to;
+
+    private TryTraverse(List<? extends A> input, Object[] output, MyFunction<? super A, ? extends B> function,
+                        AtomicReference<Exception> failure, int chunk, int from, int to) {
+        this.input = input;
+        this.output = output;
+        this.function = function;
+        this.failure = failure;
+        this.chunk = chunk;
+        this.from = from;
+        this.to = to;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <A, B> TryWrap<List<B>> traverse(ForkJoinPool pool, List<? extends A> list,
+                                            MyFunction<? super A, ? extends B> function) {
+        List<? extends A> input = list instanceof RandomAccess ? list : new ArrayList<>(list);
+        int size = input.size();
+        Object[] output = new Object[size];
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        //About 8 pieces per thread, so a slow piece doesn't hold everyone up.
+        int chunk = Math.max(MIN_CHUNK, size / (pool.getParallelism() * 8));
+
+        pool.invoke(new TryTraverse<>(input, output, function, failure, chunk, 0, size));
+
+        Exception e = failure.get();
+        if (e != null) {
+            return TryWrap.ofLeft(e);
+        }
+        return TryWrap.ofRight(Collections.unmodifiableList((List<B>) Arrays.asList(output)));
+    }
+
+    @Override
+    protected void compute() {
+        if (failure.get() != null) {
+            return;
+        }
+        if (to - from <= chunk) {
+            apply();
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        TryTraverse<A, B> left = new TryTraverse<>(input, output, function, failure, chunk, from, mid);
+        left.fork();
+        new TryTraverse<>(input, output, function, failure, chunk, mid, to).compute();
+        if (failure.get() != null && left.tryUnfork()) {
+            //Nobody has started it yet, and now nobody needs to.
+            return;
+        }
+        left.join();
+    }
+
+    private void apply() {
+        for (int i = from; i < to; i++) {
+            if ((i & (CHECK_EVERY - 1)) == 0 && failure.get() != null) {
+                return;
+            }
+            try {
+                output[i] = function.apply(input.get(i));
+            } catch (Exception e) {
+                failure.compareAndSet(null, e);
+                return;
+            }
+        }
+    }
+}
@@ -1,15 +1,34 @@
 package ttl.trywrap;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
+ * TryWrap instances are immutable.  A TryWrap is either a right (holding
+ * a value), a left (holding an Exception) or the shared Empty instance.
+ *
  * @author whynot
  */
-public class TryWrap<T> {
-    private T right;
-    private Exception left;
-    private boolean empty = false;
+public final class TryWrap<T> {
+
+    /**
+     * Stands in as the left of the Empty TryWrap.  It is shared, so it
+     * does not capture a stack trace.  A real NoSuchElementException is
+     * created only when someone actually tries to throw from an Empty.
+     */
+    static final NoSuchElementException EMPTY_MARKER = new EmptyMarker();
+
+    private static final TryWrap<?> EMPTY = new TryWrap<>(EMPTY_MARKER, null, true);
+
+    private final T right;
+    private final Exception left;
+    private final boolean empty;
 
     /**
      * Wrap either the result or an Exception in a TryWrap
@@ -27,6 +46,178 @@ public class TryWrap<T> {
         }
     }
 
+    /**
+     * Like of(supplier), but with the given CapturePolicy in effect
+     * for any TryFailure created while the supplier runs.
+     *
+     * @param policy
+     * @param supplier
+     * @param <T>
+     * @return
+     */
+    public static <T> TryWrap<T> of(CapturePolicy policy, MySupplier<T> supplier) {
+        CapturePolicy previous = CapturePolicy.enter(policy);
+        try {
+            return of(supplier);
+        } finally {
+            CapturePolicy.exit(previous);
+        }
+    }
+
+    /**
+     * Run all the suppliers at the same time on the executor, and wait
+     * (at most) until the deadline for them to finish.  The results are
+     * in the same order as the suppliers.
+     *
+     * Any supplier that is not done by the deadline is cancelled (its
+     * thread is interrupted) and comes back as a left with a
+     * TimeoutException.  So this takes as long as the slowest supplier,
+     * or the deadline, whichever is shorter.
+     *
+     * @param executor Where to run the suppliers.  Make sure it has
+     *                 enough threads to run them all at once.
+     * @param deadline
+     * @param suppliers
+     * @param <T>
+     * @return
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs") //The list is only read.
+    public static <T> List<TryWrap<T>> ofAll(Executor executor, Duration deadline, MySupplier<T>... suppliers) {
+        return TryTasks.ofAll(executor, deadline, Arrays.asList(suppliers));
+    }
+
+    public static <T> List<TryWrap<T>> ofAll(Executor executor, Duration deadline,
+                                             Iterable<? extends MySupplier<T>> suppliers) {
+        return TryTasks.ofAll(executor, deadline, suppliers);
+    }
+
+    /**
+     * Run the supplier, but give up on it once the deadline has passed.
+     * The supplier runs on the executor set with setWithinExecutor (by
+     * default a cached pool of daemon threads).  If it is not done in
+     * time, its thread is interrupted and you get a left with a
+     * TimeoutException.
+     *
+     * Code that ignores interrupts will keep its thread busy even after
+     * we have given up on it.  Use ofWithinCancellable for that.
+     *
+     * @param deadline
+     * @param supplier
+     * @param <T>
+     * @return
+     */
+    public static <T> TryWrap<T> ofWithin(Duration deadline, MySupplier<T> supplier) {
+        return TryTasks.within(TryTasks.withinExecutor(), deadline, token -> supplier.get());
+    }
+
+    public static <T> TryWrap<T> ofWithin(Executor executor, Duration deadline, MySupplier<T> supplier) {
+        return TryTasks.within(executor, deadline, token -> supplier.get());
+    }
+
+    /**
+     * Like ofWithin, but the work gets a CancellationToken that it can
+     * poll.  The token is cancelled when the deadline passes, along with
+     * the interrupt.
+     *
+     * @param deadline
+     * @param work
+     * @param <T>
+     * @return
+     */
+    public static <T> TryWrap<T> ofWithinCancellable(Duration deadline, MyFunction<CancellationToken, T> work) {
+        return TryTasks.within(TryTasks.withinExecutor(), deadline, work);
+    }
+
+    public static <T> TryWrap<T> ofWithinCancellable(Executor executor, Duration deadline,
+                                                     MyFunction<CancellationToken, T> work) {
+        return TryTasks.within(executor, deadline, work);
+    }
+
+    /**
+     * ofRunnable with a deadline.  Gives the Empty if the runnable
+     * finishes in time, else a left.
+     *
+     * @param deadline
+     * @param runnable
+     * @param <T>
+     * @return
+     */
+    public static <T> TryWrap<T> ofRunnableWithin(Duration deadline, MyRunnable runnable) {
+        return ofRunnableWithin(TryTasks.withinExecutor(), deadline, runnable);
+    }
+
+    public static <T> TryWrap<T> ofRunnableWithin(Executor executor, Duration deadline, MyRunnable runnable) {
+        TryWrap<T> result = TryTasks.within(executor, deadline, token -> {
+            runnable.run();
+            return null;
+        });
+        return result.isLeft() ? result : ofEmpty();
+    }
+
+    /**
+     * Set the executor used by ofWithin, ofWithinCancellable and
+     * ofRunnableWithin when none is given.
+     *
+     * @param executor
+     */
+    public static void setWithinExecutor(Executor executor) {
+        TryTasks.setWithinExecutor(executor);
+    }
+
+    /**
+     * Apply the function to every element of the list, in parallel on the
+     * common ForkJoinPool.  If they all work, you get a right of the results,
+     * in the same order as the list.  If any fail, you get a left, and the
+     * rest of the work is abandoned as soon as possible.  With more than one
+     * failure, which one you get depends on timing.
+     *
+     * @param list
+     * @param function
+     * @param <A>
+     * @param <B>
+     * @return
+     */
+    public static <A, B> TryWrap<List<B>> traverseParallel(List<? extends A> list,
+                                                           MyFunction<? super A, ? extends B> function) {
+        return TryTraverse.traverse(ForkJoinPool.commonPool(), list, function);
+    }
+
+    public static <A, B> TryWrap<List<B>> traverseParallel(ForkJoinPool pool, List<? extends A> list,
+                                                           MyFunction<? super A, ? extends B> function) {
+        return TryTraverse.traverse(pool, list, function);
+    }
+
+    /**
+     * Call the supplier, and if it gives a left, call it again as the
+     * RetryPolicy allows, waiting (in this thread) between attempts.
+     * Returns the first right or Empty, or the last left.
+     *
+     * @param policy
+     * @param supplier
+     * @param <T>
+     * @return
+     */
+    public static <T> TryWrap<T> retrying(RetryPolicy policy, MySupplier<T> supplier) {
+        return TryRetry.retrying(policy, supplier);
+    }
+
+    /**
+     * Like retrying, but the attempts run on the scheduler and the waits
+     * between them are scheduled delays, so no thread is held up while
+     * backing off.
+     *
+     * @param policy
+     * @param supplier
+     * @param scheduler
+     * @param <T>
+     * @return
+     */
+    public static <T> AsyncTryWrap<T> retryingAsync(RetryPolicy policy, MySupplier<T> supplier,
+                                                    ScheduledExecutorService scheduler) {
+        return TryRetry.retryingAsync(policy, supplier, scheduler);
+    }
+
     /**
      * Wrap any Exceptions in a TryWrap
      * This will create an empty TryWrap.
@@ -48,27 +239,42 @@ public class TryWrap<T> {
     }
 
     /**
-     * Create an Empty TryWrap.  A NoSuchElementException
+     * Like ofRunnable(runnable), but with the given CapturePolicy in
+     * effect for any TryFailure created while the runnable runs.
+     *
+     * @param policy
+     * @param runnable
+     * @param <T>
+     * @return
+     */
+    public static <T> TryWrap<T> ofRunnable(CapturePolicy policy, MyRunnable runnable) {
+        CapturePolicy previous = CapturePolicy.enter(policy);
+        try {
+            return ofRunnable(runnable);
+        } finally {
+            CapturePolicy.exit(previous);
+        }
+    }
+
+    /**
+     * Return the Empty TryWrap.  A NoSuchElementException
      * will be thrown on any attempt retrieve a value from
-     * an empty
+     * an empty.  There is only one Empty, so this does not
+     * allocate.
      * @param <T>
      * @return
      */
+    @SuppressWarnings("unchecked")
     public static <T> TryWrap<T> ofEmpty() {
-        TryWrap<T> me = new TryWrap<>(null, null);
-        me.empty = true;
-        me.left = new NoSuchElementException("Empty TryWrap");
-        return me;
+        return (TryWrap<T>) EMPTY;
     }
 
     public static <T> TryWrap<T> ofRight(T x) {
-        TryWrap<T> me = new TryWrap<>(null, x);
-        return me;
+        return new TryWrap<>(null, x, false);
     }
 
     public static <T> TryWrap<T> ofLeft(Exception y) {
-        TryWrap<T> me = new TryWrap<>(y, null);
-        return me;
+        return new TryWrap<>(y, null, false);
     }
 
     public T right() {
@@ -98,9 +304,8 @@ public class TryWrap<T> {
     }
 
     /**
-     * If we don't have a right and we are empty, return an empty.
-     * If we don't have right and we are not empty, then we *have*
-     * to have a left, so return that.
+     * If we don't have a right, we are either the Empty or a left.
+     * Either way there is nothing to map, so return ourself, retyped.
      *
      * If we have a right, call the function on it.  If all goes well,
      * return a TryWrap with the new value.  Else return a TryWrap with
@@ -112,10 +317,7 @@ public class TryWrap<T> {
     public <R> TryWrap<R> map(MyFunction<? super T, ? extends R> function) {
         assert(right != null || left != null | isEmpty());
         if (right == null) {
-            if (isEmpty()) {
-                return ofEmpty();
-            }
-            return ofLeft(left);
+            return retype();
         }
         try {
             R r = function.apply(right);
@@ -126,9 +328,8 @@ public class TryWrap<T> {
     }
 
     /**
-     * If we don't have a right and we are empty, return an empty.
-     * If we don't have right and we are not empty, then we *have*
-     * to have a left, so return that.
+     * If we don't have a right, we are either the Empty or a left.
+     * Either way there is nothing to map, so return ourself, retyped.
      *
      * If we have a right, call the function on it.  If all goes well,
      * return the TryWrap that the function returns.  Else return a TryWrap
@@ -140,10 +341,7 @@ public class TryWrap<T> {
     public <R> TryWrap<R> flatMap(MyFunction<? super T, TryWrap<R>> function) {
         assert(right != null || left != null | isEmpty());
         if (right == null) {
-            if (isEmpty()) {
-                return ofEmpty();
-            }
-            return ofLeft(left);
+            return retype();
         }
         try {
             TryWrap<R> r = function.apply(right);
@@ -154,9 +352,59 @@ public class TryWrap<T> {
     }
 
     /**
-     * If we don't have a right and we are empty, return an empty.
-     * If we don't have right and we are not empty, then we *have*
-     * to have a left, so return that.
+     * Like map, but for a function that produces an int.  The int
+     * is not boxed.
+     * @param function
+     * @return
+     */
+    public IntTryWrap mapToInt(MyToIntFunction<? super T> function) {
+        if (right == null) {
+            return isLeft() ? IntTryWrap.ofLeft(left) : IntTryWrap.ofEmpty();
+        }
+        try {
+            return IntTryWrap.ofRight(function.applyAsInt(right));
+        } catch (Exception e) {
+            return IntTryWrap.ofLeft(e);
+        }
+    }
+
+    /**
+     * Like map, but for a function that produces a long.  The long
+     * is not boxed.
+     * @param function
+     * @return
+     */
+    public LongTryWrap mapToLong(MyToLongFunction<? super T> function) {
+        if (right == null) {
+            return isLeft() ? LongTryWrap.ofLeft(left) : LongTryWrap.ofEmpty();
+        }
+        try {
+            return LongTryWrap.ofRight(function.applyAsLong(right));
+        } catch (Exception e) {
+            return LongTryWrap.ofLeft(e);
+        }
+    }
+
+    /**
+     * Like map, but for a function that produces a double.  The double
+     * is not boxed.
+     * @param function
+     * @return
+     */
+    public DoubleTryWrap mapToDouble(MyToDoubleFunction<? super T> function) {
+        if (right == null) {
+            return isLeft() ? DoubleTryWrap.ofLeft(left) : DoubleTryWrap.ofEmpty();
+        }
+        try {
+            return DoubleTryWrap.ofRight(function.applyAsDouble(right));
+        } catch (Exception e) {
+            return DoubleTryWrap.ofLeft(e);
+        }
+    }
+
+    /**
+     * If we don't have a right, we are either the Empty or a left,
+     * so return ourself.
      *
      * If we have a right, call the predicate function on it.
      * If all goes well, return ourself (this).  Else return a TryWrap
@@ -167,12 +415,8 @@ public class TryWrap<T> {
     public TryWrap<T> filter(MyPredicate<? super T> predicate) {
         assert(right != null || left != null | isEmpty());
         if (right == null) {
-            if (isEmpty()) {
-                return ofEmpty();
-            }
-            return ofLeft(left);
+            return this;
         }
-        boolean allOk = false;
         try {
             boolean r = predicate.test(right);
             if (r) {
@@ -185,6 +429,14 @@ public class TryWrap<T> {
         }
     }
 
+    /**
+     * Turn this into the start of a LazyTry pipeline.
+     * @return
+     */
+    public LazyTry<T> lazy() {
+        return LazyTry.from(this);
+    }
+
     /**
      * Call the consumer if we have a value.
      * Any Exceptions thrown from the consumer are
@@ -198,8 +450,7 @@ public class TryWrap<T> {
             try {
                 consumer.accept(right);
             }catch (Exception e) {
-                right = null;
-                orElseThrowUnchecked(e);
+                throw new RuntimeException(e);
             }
         }
     }
@@ -219,8 +470,7 @@ public class TryWrap<T> {
             try {
                 consumer.accept(left);
             }catch (Exception e) {
-                right = null;
-                orElseThrowUnchecked(e);
+                throw new RuntimeException(e);
             }
         }
     }
@@ -285,7 +535,7 @@ public class TryWrap<T> {
         if (isRight()) {
             return right;
         }
-        throw left;
+        throw materialize(left);
     }
 
     /**
@@ -297,10 +547,11 @@ public class TryWrap<T> {
         if (isRight()) {
             return right;
         }
-        if(RuntimeException.class.isAssignableFrom(left.getClass())) {
-            throw (RuntimeException)left;
+        Exception toThrow = materialize(left);
+        if(toThrow instanceof RuntimeException) {
+            throw (RuntimeException)toThrow;
         }
-        throw new RuntimeException(left);
+        throw new RuntimeException(toThrow);
     }
 
 
@@ -337,9 +588,43 @@ public class TryWrap<T> {
     }
 
 
-    private TryWrap(Exception left, T right) {
+    private TryWrap(Exception left, T right, boolean empty) {
         this.right = right;
         this.left = left;
+        this.empty = empty;
+    }
+
+    /**
+     * Only called when we have no right, in which case there is
+     * no T anywhere inside us and we can pose as any TryWrap<R>.
+     */
+    @SuppressWarnings("unchecked")
+    <R> TryWrap<R> retype() {
+        return (TryWrap<R>) this;
+    }
+
+    /**
+     * The shared EMPTY_MARKER has no stack trace, so swap it out for
+     * a real one just before it gets thrown.
+     */
+    static Exception materialize(Exception e) {
+        if (e == EMPTY_MARKER) {
+            return new NoSuchElementException("Empty TryWrap");
+        }
+        return e;
+    }
+
+    private static final class EmptyMarker extends NoSuchElementException {
+        private static final long serialVersionUID = 1L;
+
+        private EmptyMarker() {
+            super("Empty TryWrap");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
     }
 
     @Override
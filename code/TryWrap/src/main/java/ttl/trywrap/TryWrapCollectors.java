@@ -0,0 +1,213 @@
+package ttl.trywrap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collector;
+
+/**
+ * Collectors for Streams of TryWrap.  Each one looks at every TryWrap
+ * exactly once, and each has a combiner that keeps encounter order, so
+ * they give the same answer on parallelStream() as on stream().
+ *
+ * The sized versions pre-size a list for the whole stream.  Use them
+ * when you know how many elements are coming (e.g. the stream is from a
+ * List).  Only the first container of each collect() gets the size -
+ * on a sequential stream that is the only one, and on a parallel stream
+ * the other chunks start small and grow as usual, so asking for the
+ * full size never costs more than one list of that size.
+ *
+ * @author whynot
+ */
+public final class TryWrapCollectors {
+
+    private static final int DEFAULT_SIZE = 10;
+
+    private TryWrapCollectors() {
+    }
+
+    /**
+     * The successes and failures from a Stream of TryWrap.  Empties
+     * (and null rights) are counted, but not kept.
+     */
+    public static final class Partition<T> {
+        private final List<T> successes;
+        private final List<Exception> failures;
+        private long empties;
+
+        private Partition(int expectedSize) {
+            successes = new ArrayList<>(expectedSize);
+            failures = new ArrayList<>();
+        }
+
+        public List<T> successes() {
+            return successes;
+        }
+
+        public List<Exception> failures() {
+            return failures;
+        }
+
+        public long empties() {
+            return empties;
+        }
+
+        private void accept(TryWrap<? extends T> tw) {
+            T right = tw.orElseNull();
+            if (right != null) {
+                successes.add(right);
+            } else if (tw.isLeft()) {
+                failures.add(tw.left());
+            } else {
+                empties++;
+            }
+        }
+
+        private Partition<T> combine(Partition<T> other) {
+            successes.addAll(other.successes);
+            failures.addAll(other.failures);
+            empties += other.empties;
+            return this;
+        }
+    }
+
+    /**
+     * Split the rights and the lefts into two lists in a single pass.
+     * @param <T>
+     * @return
+     */
+    public static <T> Collector<TryWrap<? extends T>, ?, Partition<T>> partition() {
+        return Collector.of(() -> new Partition<T>(DEFAULT_SIZE),
+                Partition::accept,
+                Partition::combine,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public static <T> Collector<TryWrap<? extends T>, ?, Partition<T>> partition(int expectedSize) {
+        Sizer sizer = new Sizer(expectedSize);
+        return Collector.of(() -> new Partition<T>(sizer.next()),
+                Partition::accept,
+                Partition::combine,
+                sizer::done);
+    }
+
+    /**
+     * Turn a Stream of TryWrap<T> into a TryWrap of List<T>.  If all the
+     * elements are rights, you get a right with all the values in order.
+     * Else you get the first (in encounter order) left or Empty.
+     *
+     * A Collector can't stop the stream, but once a failure has been seen
+     * the values collected so far are dropped and every later element is
+     * ignored without being looked at.
+     * @param <T>
+     * @return
+     */
+    public static <T> Collector<TryWrap<? extends T>, ?, TryWrap<List<T>>> sequence() {
+        return Collector.of(() -> new Sequence<T>(DEFAULT_SIZE),
+                Sequence::accept,
+                Sequence::combine,
+                Sequence::finish);
+    }
+
+    public static <T> Collector<TryWrap<? extends T>, ?, TryWrap<List<T>>> sequence(int expectedSize) {
+        Sizer sizer = new Sizer(expectedSize);
+        return Collector.of(() -> new Sequence<T>(sizer.next()),
+                Sequence::accept,
+                Sequence::combine,
+                seq -> sizer.done(seq.finish()));
+    }
+
+    /**
+     * Find the first (in encounter order) left in the stream.
+     * @return The Exception from the first left, or an empty Optional
+     * if there were no lefts
+     */
+    public static Collector<TryWrap<?>, ?, Optional<Exception>> firstFailure() {
+        return Collector.of(FirstFailure::new,
+                FirstFailure::accept,
+                FirstFailure::combine,
+                ff -> Optional.ofNullable(ff.failure));
+    }
+
+    /**
+     * Gives the expected size to the first container of a collect(), and
+     * the default to the rest.  The finisher hands it back for the next
+     * collect().
+     */
+    private static final class Sizer {
+        private final int expectedSize;
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        private Sizer(int expectedSize) {
+            if (expectedSize < 0) {
+                throw new IllegalArgumentException("Bad expectedSize: " + expectedSize);
+            }
+            this.expectedSize = expectedSize;
+        }
+
+        private int next() {
+            return taken.compareAndSet(false, true) ? expectedSize : DEFAULT_SIZE;
+        }
+
+        private <R> R done(R result) {
+            taken.set(false);
+            return result;
+        }
+    }
+
+    private static final class Sequence<T> {
+        private List<T> values;
+        private TryWrap<List<T>> failure;
+
+        private Sequence(int expectedSize) {
+            values = new ArrayList<>(expectedSize);
+        }
+
+        private void accept(TryWrap<? extends T> tw) {
+            if (failure != null) {
+                return;
+            }
+            T right = tw.orElseNull();
+            if (right != null) {
+                values.add(right);
+            } else {
+                failure = tw.isLeft() ? TryWrap.ofLeft(tw.left()) : TryWrap.ofEmpty();
+                values = null;
+            }
+        }
+
+        private Sequence<T> combine(Sequence<T> other) {
+            if (failure != null) {
+                return this;
+            }
+            if (other.failure != null) {
+                return other;
+            }
+            values.addAll(other.values);
+            return this;
+        }
+
+        private TryWrap<List<T>> finish() {
+            if (failure != null) {
+                return failure;
+            }
+            return TryWrap.ofRight(Collections.unmodifiableList(values));
+        }
+    }
+
+    private static final class FirstFailure {
+        private Exception failure;
+
+        private void accept(TryWrap<?> tw) {
+            if (failure == null && tw.isLeft()) {
+                failure = tw.left();
+            }
+        }
+
+        private FirstFailure combine(FirstFailure other) {
+            return failure != null ? this : other;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestAsyncTryWrap {
+
+    private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testMapAsyncChain() {
+        TryWrap<Integer> result = AsyncTryWrap.of(() -> "hello", executor)
+                .mapAsync(String::length, executor)
+                .map(i -> i * 2)
+                .join();
+
+        assertEquals(10, result.right());
+    }
+
+    @Test
+    public void testCheckedExceptionBecomesLeft() {
+        TryWrap<Integer> result = AsyncTryWrap.of(() -> "doesNotExist", executor)
+                .mapAsync(FileInputStream::new, executor)
+                .mapAsync(FileInputStream::read, executor)
+                .join();
+
+        assertTrue(result.isLeft());
+        assertTrue(result.left() instanceof FileNotFoundException);
+    }
+
+    @Test
+    public void testCompletionExceptionIsUnwrapped() {
+        String evilNullPointer = null;
+        CompletableFuture<Integer> cf = CompletableFuture.supplyAsync(() -> "abc", executor)
+                .thenApply(s -> evilNullPointer.length());
+
+        TryWrap<Integer> result = AsyncTryWrap.fromCompletableFuture(cf).join();
+
+        assertTrue(result.isLeft());
+        assertTrue(result.left() instanceof NullPointerException);
+    }
+
+    @Test
+    public void testFlatMapAsync() {
+        TryWrap<Integer> result = AsyncTryWrap.of(() -> 5, executor)
+                .flatMapAsync(i -> AsyncTryWrap.of(() -> i * i, executor), executor)
+                .join();
+
+        assertEquals(25, result.right());
+    }
+
+    @Test
+    public void testToCompletableFutureCompletesExceptionallyWithTheLeft() {
+        CompletableFuture<Integer> cf = AsyncTryWrap.of(() -> 10 / 0, executor).toCompletableFuture();
+
+        ExecutionException e = assertThrows(ExecutionException.class, cf::get);
+        assertTrue(e.getCause() instanceof ArithmeticException);
+    }
+
+    @Test
+    public void testMapAsyncDoesNotBlockTheCaller() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncTryWrap<String> slow = AsyncTryWrap.of(() -> {
+            release.await();
+            return "done";
+        }, executor).mapAsync(String::toUpperCase, executor);
+
+        assertFalse(slow.isDone());
+        release.countDown();
+
+        CountDownLatch done = new CountDownLatch(1);
+        slow.whenDone(tw -> done.countDown());
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("DONE", slow.join().right());
+    }
+
+    @Test
+    public void testWhenDonePassesOnTheConsumersFailure() {
+        AsyncTryWrap<String> ok = AsyncTryWrap.of(() -> "done", executor).whenDone(tw -> {});
+        assertEquals("done", ok.join().right());
+
+        AsyncTryWrap<String> failed = AsyncTryWrap.of(() -> "done", executor).whenDone(tw -> {
+            throw new IllegalStateException("Consumer failed");
+        });
+        assertTrue(failed.join().left() instanceof IllegalStateException);
+    }
+}
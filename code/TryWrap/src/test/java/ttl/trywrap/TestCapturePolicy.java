@@ -0,0 +1,84 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestCapturePolicy {
+
+    @AfterEach
+    public void resetDefault() {
+        CapturePolicy.setDefault(CapturePolicy.FULL);
+    }
+
+    @Test
+    public void testDefaultPolicyCapturesStackTrace() {
+        TryWrap<String> tw = TryWrap.of(() -> {
+            throw TryFailure.of("bad input");
+        });
+
+        assertTrue(tw.left().getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testPerCallStacklessPolicy() {
+        TryWrap<String> tw = TryWrap.of(CapturePolicy.STACKLESS, () -> {
+            throw TryFailure.of("bad input");
+        });
+
+        assertEquals(0, tw.left().getStackTrace().length);
+        assertEquals("bad input", tw.left().getMessage());
+        assertSame(CapturePolicy.FULL, CapturePolicy.current());
+    }
+
+    @Test
+    public void testGlobalStacklessPolicy() {
+        CapturePolicy.setDefault(CapturePolicy.STACKLESS);
+        SoloTry<String> st = SoloTry.of(() -> {
+            throw TryFailure.of("bad input");
+        });
+
+        TryFailure tf = assertThrows(TryFailure.class, st::get);
+        assertEquals(0, tf.getStackTrace().length);
+    }
+
+    @Test
+    public void testStacklessFailureKeepsItsCause() {
+        IllegalStateException cause = new IllegalStateException("root");
+        TryWrap<?> tw = TryWrap.ofRunnable(CapturePolicy.STACKLESS, () -> {
+            throw TryFailure.of("wrapped", cause);
+        });
+
+        Exception e = assertThrows(TryFailure.class, tw::orElseThrow);
+        assertSame(cause, e.getCause());
+    }
+
+    @Test
+    public void testSampledPolicyCapturesSome() {
+        CapturePolicy policy = CapturePolicy.sampled(4);
+        int captured = 0;
+        for (int i = 0; i < 4000; i++) {
+            if (policy.captureStackTrace()) {
+                captured++;
+            }
+        }
+        assertTrue(captured > 500 && captured < 1500, "captured " + captured);
+    }
+
+    @Test
+    public void testNestedPerCallPolicyIsRestored() {
+        TryWrap.of(CapturePolicy.STACKLESS, () -> {
+            TryWrap.of(CapturePolicy.FULL, () -> "inner");
+            assertSame(CapturePolicy.STACKLESS, CapturePolicy.current());
+            return "outer";
+        });
+        assertSame(CapturePolicy.FULL, CapturePolicy.current());
+    }
+}
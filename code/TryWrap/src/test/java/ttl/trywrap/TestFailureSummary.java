@@ -0,0 +1,96 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestFailureSummary {
+
+    private TryWrap<Integer> parse(int i) {
+        return TryWrap.of(() -> {
+            if (i % 3 == 0) {
+                throw new IllegalArgumentException("bad " + i);
+            }
+            if (i % 5 == 0) {
+                throw new IOException("io " + i);
+            }
+            return i;
+        });
+    }
+
+    @Test
+    public void testCountsAreExactFromParallelStream() {
+        FailureSummary summary = new FailureSummary(5, 10);
+        IntStream.range(0, 300_000).parallel()
+                .mapToObj(this::parse)
+                .forEach(tw -> tw.orElseConsume(summary));
+
+        long badCount = IntStream.range(0, 300_000).filter(i -> i % 3 == 0).count();
+        long ioCount = IntStream.range(0, 300_000).filter(i -> i % 3 != 0 && i % 5 == 0).count();
+
+        assertEquals(badCount, summary.count(IllegalArgumentException.class));
+        assertEquals(ioCount, summary.count(IOException.class));
+        assertEquals(badCount + ioCount, summary.total());
+    }
+
+    @Test
+    public void testSamplesAreBounded() {
+        FailureSummary summary = new FailureSummary(5, 10);
+        IntStream.range(0, 100_000).mapToObj(this::parse).forEach(summary::record);
+
+        List<FailureSummary.ClassSummary> summaries = summary.summaries();
+        assertEquals(2, summaries.size());
+        assertSame(IllegalArgumentException.class, summaries.get(0).getExceptionClass());
+        for (FailureSummary.ClassSummary cs : summaries) {
+            assertEquals(5, cs.getSamples().size());
+        }
+    }
+
+    /**
+     * One thread sees 1000 failures and another 10.  The threads may get
+     * reservoirs of their own, but the sample should still be of all
+     * 1010: about 1 in 100 of the kept ones from the second thread.
+     */
+    @Test
+    public void testSamplesFromSeveralThreadsAreMergedFairly() throws InterruptedException {
+        int fromFew = 0;
+        for (int trial = 0; trial < 200; trial++) {
+            FailureSummary summary = new FailureSummary(10, 10);
+            Thread many = new Thread(() -> IntStream.range(0, 1000)
+                    .forEach(i -> summary.accept(new IllegalStateException("many"))));
+            Thread few = new Thread(() -> IntStream.range(0, 10)
+                    .forEach(i -> summary.accept(new IllegalStateException("few"))));
+            many.start();
+            many.join();
+            few.start();
+            few.join();
+
+            List<String> messages = summary.summaries().get(0).getMessages();
+            assertEquals(10, messages.size());
+            fromFew += messages.stream().filter("few"::equals).count();
+        }
+        //About 20 expected.
+        assertTrue(fromFew < 60, "From the thread with few: " + fromFew);
+    }
+
+    @Test
+    public void testClassesBeyondMaxAreCountedAsOther() {
+        FailureSummary summary = new FailureSummary(2, 1);
+        summary.accept(new IllegalStateException("a"));
+        summary.accept(new IllegalArgumentException("b"));
+        summary.accept(new IOException("c"));
+
+        assertEquals(1, summary.count(IllegalStateException.class));
+        assertEquals(2, summary.otherCount());
+        assertTrue(summary.toString().contains("other: 2"));
+    }
+}
@@ -0,0 +1,125 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestLazyTry {
+
+    @Test
+    public void testNothingRunsUntilATerminalOperation() {
+        int[] calls = {0};
+        LazyTry<Integer> lazy = LazyTry.of(() -> {
+            calls[0]++;
+            return "abc";
+        }).map(s -> {
+            calls[0]++;
+            return s.length();
+        });
+
+        assertEquals(0, calls[0]);
+        assertEquals(3, lazy.orElse(0));
+        assertEquals(2, calls[0]);
+    }
+
+    @Test
+    public void testMapChainGivesSameResultAsTryWrap() {
+        TryWrap<Integer> eager = TryWrap.of(() -> "hello").map(String::length).map(i -> i * 2);
+        TryWrap<Integer> lazy = LazyTry.of(() -> "hello").map(String::length).map(i -> i * 2).toTryWrap();
+
+        assertEquals(eager, lazy);
+    }
+
+    @Test
+    public void testFailureSkipsRemainingStages() {
+        boolean[] called = {false};
+        TryWrap<Integer> result = LazyTry.of(() -> 10)
+                .map(i -> i / 0)
+                .map(i -> {
+                    called[0] = true;
+                    return i;
+                }).toTryWrap();
+
+        assertTrue(result.isLeft());
+        assertTrue(result.left() instanceof ArithmeticException);
+        assertTrue(!called[0]);
+    }
+
+    @Test
+    public void testFilterRejectGivesEmpty() {
+        TryWrap<String> result = LazyTry.of(() -> "abc")
+                .filter(s -> s.length() > 5)
+                .map(String::toUpperCase)
+                .toTryWrap();
+
+        assertSame(TryWrap.ofEmpty(), result);
+        assertThrows(NoSuchElementException.class, () -> LazyTry.of(() -> "abc")
+                .filter(s -> s.length() > 5).orElseThrow());
+    }
+
+    @Test
+    public void testFromLeftTryWrapStaysLeft() {
+        TryWrap<Integer> left = TryWrap.of(() -> 10 / 0);
+        TryWrap<String> result = left.lazy().map(i -> "" + i).toTryWrap();
+
+        assertTrue(result.isLeft());
+        assertSame(left.left(), result.left());
+    }
+
+    @Test
+    public void testFlatMapTry() {
+        TryWrap<Integer> result = LazyTry.of(() -> 5).flatMapTry(this::cube).toTryWrap();
+        assertEquals(125, result.right());
+    }
+
+    @Test
+    public void testLongPipelineDoesntOverflowTheStack() {
+        LazyTry<Integer> pipeline = LazyTry.of(() -> 0);
+        for (int i = 0; i < 100_000; i++) {
+            pipeline = pipeline.map(n -> n + 1).filter(n -> n > 0);
+        }
+        assertEquals(100_000, pipeline.toTryWrap().right());
+        assertEquals(100_000, pipeline.toTryWrap().right());
+    }
+
+    @Test //unit(a) flatMap f === f(a)
+    public void leftIdentity() throws Exception {
+        int val = 2;
+        assertThat(LazyTry.of(() -> val).flatMap(f).toTryWrap(), is(f.apply(val).toTryWrap()));
+    }
+
+    @Test //m flatMap unit === m
+    public void rightIdentity() {
+        LazyTry<Integer> m1 = LazyTry.of(() -> 2);
+        assertThat(m1.flatMap(unitiser).toTryWrap(), is(m1.toTryWrap()));
+    }
+
+    @Test //(m flatMap f) flatMap g === m flatMap ( f(x) flatMap g )
+    public void associativity() {
+        LazyTry<Integer> m = LazyTry.of(() -> 2);
+        TryWrap<String> first = m.flatMap(f).flatMap(g).toTryWrap();
+        TryWrap<String> second = m.flatMap(val -> f.apply(val).flatMap(g)).toTryWrap();
+
+        assertThat(first, is(second));
+    }
+
+    private MyFunction<Integer, LazyTry<String>> f = (i -> LazyTry.of(() -> "" + i));
+
+    private MyFunction<String, LazyTry<String>> g = (s -> LazyTry.of(() -> "[" + s + "]"));
+
+    private MyFunction<Integer, LazyTry<Integer>> unitiser = (i -> LazyTry.of(() -> i));
+
+    private TryWrap<Integer> cube(Integer input) {
+        return TryWrap.of(() -> (int) Math.pow(input, 3));
+    }
+}
@@ -0,0 +1,91 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestPrimitiveTryWrap {
+
+    @Test
+    public void testIntMapChain() {
+        IntTryWrap result = IntTryWrap.of(() -> Integer.parseInt("42"))
+                .map(i -> i * 2)
+                .map(i -> i + 1);
+
+        assertEquals(85, result.right());
+    }
+
+    @Test
+    public void testIntMapFailureGivesLeftAndSkipsTheRest() {
+        IntTryWrap first = IntTryWrap.of(() -> 10).map(i -> i / 0);
+        IntTryWrap second = first.map(i -> i + 1);
+
+        assertTrue(second.isLeft());
+        assertSame(first.left(), second.left());
+        assertTrue(second.left() instanceof ArithmeticException);
+        assertTrue(LongTryWrap.ofEmpty().map(l -> l + 1).isEmpty());
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        assertEquals(DoubleTryWrap.ofRight(1.5), DoubleTryWrap.of(() -> 1.5));
+        assertEquals(IntTryWrap.ofRight(7).hashCode(), IntTryWrap.of(() -> 7).hashCode());
+        assertTrue(!IntTryWrap.ofRight(0).equals(IntTryWrap.ofEmpty()));
+    }
+
+    @Test
+    public void testIntFilterRejectGivesEmpty() {
+        IntTryWrap result = IntTryWrap.ofRight(3).filter(i -> i > 5);
+
+        assertTrue(result.isEmpty());
+        assertThrows(NoSuchElementException.class, result::orElseThrow);
+        assertEquals(-1, result.orElse(-1));
+        assertSame(IntTryWrap.ofEmpty(), result);
+        assertSame(LongTryWrap.ofEmpty(), LongTryWrap.ofRight(3L).filter(l -> l > 5));
+        assertSame(DoubleTryWrap.ofEmpty(), DoubleTryWrap.ofRight(3.0).filter(d -> d > 5));
+    }
+
+    @Test
+    public void testLongFlatMap() {
+        LongTryWrap result = LongTryWrap.ofRight(6L).flatMap(l -> LongTryWrap.of(() -> l * 7L));
+        assertEquals(42L, result.right());
+    }
+
+    @Test
+    public void testDoubleToObjAndBoxed() {
+        DoubleTryWrap price = TryWrap.of(() -> "12.50")
+                .mapToDouble(Double::parseDouble)
+                .map(d -> d * 2);
+
+        TryWrap<String> formatted = price.mapToObj(d -> String.format("%.2f", d));
+        assertEquals("25.00", formatted.right());
+        assertEquals(25.0, price.boxed().right());
+    }
+
+    @Test
+    public void testMapToIntFromLeftStaysLeft() {
+        TryWrap<String> left = TryWrap.of(() -> {
+            throw new IllegalStateException("bad");
+        });
+        IntTryWrap result = left.mapToInt(String::length);
+
+        assertTrue(result.isLeft());
+        assertSame(left.left(), result.left());
+        assertTrue(result.boxed().isLeft());
+    }
+
+    @Test
+    public void testMapToIntFromEmptyStaysEmpty() {
+        TryWrap<String> empty = TryWrap.ofEmpty();
+        assertTrue(empty.mapToInt(String::length).isEmpty());
+        assertTrue(IntTryWrap.ofEmpty().mapToObj(i -> i).isEmpty());
+    }
+}
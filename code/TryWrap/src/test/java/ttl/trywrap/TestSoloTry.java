@@ -0,0 +1,61 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestSoloTry {
+
+    @Test
+    public void testSuccessChain() throws Exception {
+        SoloTry<Integer> st = SoloTry.of(() -> 10).map(x -> x * 2).flatMap(x -> SoloTry.of(() -> x + 1));
+        assertTrue(st.isSuccess());
+        assertEquals(21, st.get());
+    }
+
+    @Test
+    public void testFailureIsPassedAlongAsIs() {
+        SoloTry<Integer> failure = SoloTry.of(() -> 10 / 0);
+        SoloTry<String> mapped = failure.map(x -> x * 2).flatMap(x -> SoloTry.of(() -> "" + x));
+
+        assertSame(failure, mapped);
+        assertFalse(mapped.isSuccess());
+        assertThrows(ArithmeticException.class, mapped::get);
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        SoloTry<Integer> failure = SoloTry.of(() -> 10 / 0);
+        assertEquals(-1, failure.recover(e -> -1).get());
+        assertEquals(-2, failure.recoverWith(e -> SoloTry.of(() -> -2)).get());
+
+        SoloTry<Integer> stillFailed = failure.recover(e -> Integer.parseInt("abc"));
+        assertThrows(NumberFormatException.class, stillFailed::get);
+
+        SoloTry<Integer> success = SoloTry.of(() -> 10);
+        assertSame(success, success.recover(e -> -1));
+        assertSame(success, success.recoverWith(e -> SoloTry.of(() -> -2)));
+    }
+
+    @Test
+    public void testFold() throws Exception {
+        assertEquals("10", SoloTry.of(() -> 10).fold(x -> "" + x, e -> "failed"));
+        assertEquals("failed", SoloTry.of(() -> 10 / 0).fold(x -> "" + x, e -> "failed"));
+    }
+
+    @Test
+    public void testEquals() {
+        Exception e = new IllegalStateException("boom");
+        assertEquals(SoloTry.asFailure(e), SoloTry.asFailure(e));
+        assertNotEquals(SoloTry.asFailure(e), SoloTry.asSuccess(e));
+        assertEquals(SoloTry.asSuccess(10), SoloTry.of(() -> 10));
+    }
+}
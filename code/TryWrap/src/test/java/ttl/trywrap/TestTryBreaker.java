@@ -0,0 +1,113 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryBreaker {
+
+    @Test
+    public void testStaysClosedWhileThingsWork() {
+        TryBreaker breaker = new TryBreaker(0.5, 10, Duration.ofSeconds(10), Duration.ofSeconds(5));
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            assertEquals(value, breaker.call(() -> value).right());
+        }
+        assertSame(TryBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void testDoesNotOpenBeforeMinimumCalls() {
+        TryBreaker breaker = new TryBreaker(0.5, 10, Duration.ofSeconds(10), Duration.ofSeconds(5));
+        for (int i = 0; i < 9; i++) {
+            breaker.call(() -> 10 / 0);
+        }
+        assertSame(TryBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void testOpensAndShortCircuits() {
+        TryBreaker breaker = new TryBreaker(0.5, 10, Duration.ofSeconds(10), Duration.ofSeconds(5));
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            breaker.call(() -> {
+                calls.incrementAndGet();
+                return 10 / 0;
+            });
+        }
+        assertSame(TryBreaker.State.OPEN, breaker.state());
+
+        TryWrap<Integer> rejected = breaker.call(() -> {
+            calls.incrementAndGet();
+            return 1;
+        });
+        assertTrue(rejected.left() instanceof TryBreaker.OpenException);
+        assertEquals(10, calls.get());
+    }
+
+    @Test
+    public void testHalfOpenTrialClosesOnSuccess() throws InterruptedException {
+        TryBreaker breaker = new TryBreaker(0.5, 4, Duration.ofSeconds(10), Duration.ofMillis(50));
+        for (int i = 0; i < 4; i++) {
+            breaker.call(() -> 10 / 0);
+        }
+        assertSame(TryBreaker.State.OPEN, breaker.state());
+
+        Thread.sleep(100);
+        assertEquals(1, breaker.call(() -> 1).right());
+        assertSame(TryBreaker.State.CLOSED, breaker.state());
+        assertEquals(0.0, breaker.failureRate());
+    }
+
+    @Test
+    public void testHalfOpenTrialReopensOnFailure() throws InterruptedException {
+        TryBreaker breaker = new TryBreaker(0.5, 4, Duration.ofSeconds(10), Duration.ofMillis(50));
+        for (int i = 0; i < 4; i++) {
+            breaker.call(() -> 10 / 0);
+        }
+        Thread.sleep(100);
+
+        assertTrue(breaker.call(() -> 10 / 0).left() instanceof ArithmeticException);
+        assertSame(TryBreaker.State.OPEN, breaker.state());
+        assertTrue(breaker.call(() -> 1).left() instanceof TryBreaker.OpenException);
+    }
+
+    @Test
+    public void testHalfOpenTrialReopensOnError() throws InterruptedException {
+        TryBreaker breaker = new TryBreaker(0.5, 4, Duration.ofSeconds(10), Duration.ofMillis(50));
+        for (int i = 0; i < 4; i++) {
+            breaker.call(() -> 10 / 0);
+        }
+        Thread.sleep(100);
+
+        assertThrows(StackOverflowError.class, () -> breaker.call(() -> {
+            throw new StackOverflowError();
+        }));
+        assertSame(TryBreaker.State.OPEN, breaker.state());
+
+        Thread.sleep(100);
+        assertEquals(1, breaker.call(() -> 1).right());
+        assertSame(TryBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void testOldFailuresSlideOutOfTheWindow() throws InterruptedException {
+        TryBreaker breaker = new TryBreaker(0.5, 4, Duration.ofMillis(100), 5, Duration.ofSeconds(5));
+        for (int i = 0; i < 3; i++) {
+            breaker.call(() -> 10 / 0);
+        }
+        Thread.sleep(200);
+        breaker.call(() -> 10 / 0);
+
+        assertSame(TryBreaker.State.CLOSED, breaker.state());
+    }
+}
@@ -0,0 +1,91 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryBulkhead {
+
+    @Test
+    public void testRejectsWhenFull() throws Exception {
+        TryBulkhead bulkhead = new TryBulkhead("test.full", 2, Duration.ZERO);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<TryWrap<Integer>> a = pool.submit(() -> bulkhead.call(() -> block(started, release)));
+            Future<TryWrap<Integer>> b = pool.submit(() -> bulkhead.call(() -> block(started, release)));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertEquals(2, bulkhead.inFlight());
+
+            TryWrap<Integer> rejected = bulkhead.call(() -> 3);
+            assertTrue(rejected.left() instanceof TryBulkhead.FullException);
+            assertEquals(1, bulkhead.rejected());
+
+            release.countDown();
+            assertEquals(1, a.get(5, TimeUnit.SECONDS).right());
+            assertEquals(1, b.get(5, TimeUnit.SECONDS).right());
+            assertEquals(0, bulkhead.inFlight());
+            assertEquals(3, bulkhead.call(() -> 3).right());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBoundedWait() throws Exception {
+        TryBulkhead bulkhead = new TryBulkhead("test.wait", 1, Duration.ofMillis(20));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<TryWrap<Integer>> a = pool.submit(() -> bulkhead.call(() -> block(started, release)));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertTrue(bulkhead.call(() -> 3).left() instanceof TryBulkhead.FullException);
+            assertEquals(1, bulkhead.waits());
+            assertTrue(bulkhead.totalWaitNanos() >= Duration.ofMillis(20).toNanos());
+
+            release.countDown();
+            a.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailuresReleaseThePermit() {
+        TryBulkhead bulkhead = new TryBulkhead("test.release", 1, Duration.ZERO);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bulkhead.call(() -> 10 / 0).left() instanceof ArithmeticException);
+        }
+        assertEquals(0, bulkhead.inFlight());
+        assertEquals(0, bulkhead.rejected());
+    }
+
+    @Test
+    public void testNamedRegistry() {
+        TryBulkhead first = TryBulkhead.named("test.registry", 3, Duration.ZERO);
+        assertSame(first, TryBulkhead.named("test.registry", 99, Duration.ofSeconds(1)));
+        assertSame(first, TryBulkhead.lookup("test.registry"));
+        assertEquals(3, first.maxConcurrent());
+    }
+
+    private int block(CountDownLatch started, CountDownLatch release) throws InterruptedException {
+        started.countDown();
+        release.await();
+        return 1;
+    }
+}
@@ -0,0 +1,161 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryCache {
+
+    @Test
+    public void testHitAfterMiss() {
+        TryCache<String, Integer> cache = new TryCache<>(10, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+
+        TryWrap<Integer> first = cache.get("a", calls::incrementAndGet);
+        TryWrap<Integer> second = cache.get("a", calls::incrementAndGet);
+
+        assertSame(first, second);
+        assertEquals(1, calls.get());
+        TryCache.Stats stats = cache.stats("a");
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    public void testLeftsAreCachedWithTheirOwnTtl() throws InterruptedException {
+        TryCache<String, Integer> cache = new TryCache<>(10, Duration.ofMinutes(1), Duration.ofMillis(50));
+        AtomicInteger calls = new AtomicInteger();
+        MySupplier<Integer> failing = () -> {
+            calls.incrementAndGet();
+            return 10 / 0;
+        };
+
+        assertTrue(cache.get("a", failing).isLeft());
+        assertTrue(cache.get("a", failing).isLeft());
+        assertEquals(1, calls.get());
+
+        Thread.sleep(100);
+        assertNull(cache.getIfPresent("a"));
+        assertTrue(cache.get("a", failing).isLeft());
+        assertEquals(2, calls.get());
+        //Stats survive the reload
+        assertEquals(2, cache.stats("a").getMisses());
+    }
+
+    @Test
+    public void testConcurrentLoadsAreCoalesced() throws Exception {
+        TryCache<String, Integer> cache = new TryCache<>(10, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TryWrap<Integer>>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(pool.submit(() -> cache.get("slow", () -> {
+                    release.await();
+                    return calls.incrementAndGet();
+                })));
+            }
+            Thread.sleep(50);
+            release.countDown();
+            for (Future<TryWrap<Integer>> f : futures) {
+                assertEquals(1, f.get(5, TimeUnit.SECONDS).right());
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWaitersSeeTheErrorAsTheCause() throws Exception {
+        TryCache<String, Integer> cache = new TryCache<>(10, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<TryWrap<Integer>> loader = pool.submit(() -> cache.get("a", () -> {
+                started.countDown();
+                release.await();
+                throw new StackOverflowError();
+            }));
+            started.await();
+            Future<TryWrap<Integer>> waiter = pool.submit(() -> cache.get("a", () -> 1));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertTrue(waiter.get(5, TimeUnit.SECONDS).left().getCause() instanceof StackOverflowError);
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> loader.get(5, TimeUnit.SECONDS));
+            assertTrue(thrown.getCause() instanceof StackOverflowError);
+            assertNull(cache.getIfPresent("a"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEvictionSweepsTheWholeMap() {
+        TryCache<Integer, Integer> cache = new TryCache<>(100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            cache.get(value, () -> value);
+        }
+        //Keep touching the first 50, so the sweep has to find the other 50.
+        for (int i = 100; i < 150; i++) {
+            for (int j = 0; j < 50; j++) {
+                int value = j;
+                cache.get(value, () -> value);
+            }
+            int value = i;
+            cache.get(value, () -> value);
+        }
+        int kept = 0;
+        for (int j = 0; j < 50; j++) {
+            if (cache.getIfPresent(j) != null) {
+                kept++;
+            }
+        }
+        assertTrue(kept >= 45, "Kept " + kept + " of the busy keys");
+    }
+
+    @Test
+    public void testSizeIsBounded() {
+        TryCache<Integer, Integer> cache = new TryCache<>(100, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        for (int i = 0; i < 1000; i++) {
+            int value = i;
+            cache.get(value, () -> value);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(900, cache.stats().getEvictions());
+        assertEquals(1000, cache.stats().getMisses());
+    }
+
+    @Test
+    public void testInvalidate() {
+        TryCache<String, Integer> cache = new TryCache<>(10, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        AtomicInteger calls = new AtomicInteger();
+        cache.get("a", calls::incrementAndGet);
+        cache.invalidate("a");
+        assertNull(cache.stats("a"));
+        assertEquals(2, cache.get("a", calls::incrementAndGet).right());
+    }
+}
@@ -0,0 +1,114 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryFiles {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testLinesAreParsed() throws IOException {
+        Path file = write("1\n2\r\nthree\n\n5");
+        try (Stream<TryWrap<Integer>> lines = TryFiles.lines(file, cs -> Integer.parseInt(cs.toString()))) {
+            List<TryWrap<Integer>> result = lines.collect(Collectors.toList());
+            assertEquals(5, result.size());
+            assertEquals(1, result.get(0).right());
+            assertEquals(2, result.get(1).right());
+            assertTrue(result.get(2).left() instanceof NumberFormatException);
+            assertTrue(result.get(3).left() instanceof NumberFormatException);
+            assertEquals(5, result.get(4).right());
+        }
+    }
+
+    @Test
+    public void testCharSequenceViewAndDecoding() throws IOException {
+        Path file = write("héllo wörld\n");
+        List<String> lines = TryFiles.lines(file, CharSequence::toString)
+                .map(TryWrap::right)
+                .collect(Collectors.toList());
+        assertEquals(List.of("héllo wörld"), lines);
+
+        List<String> firstWords = TryFiles.lines(write("abc def\n"), cs -> cs.subSequence(0, 3).toString())
+                .map(TryWrap::right)
+                .collect(Collectors.toList());
+        assertEquals(List.of("abc"), firstWords);
+    }
+
+    @Test
+    public void testMultibyteLinesAreDecodedForCharAtToo() throws IOException {
+        Path file = write("naïve café €5 \uD834\uDD1E\nplain ascii\nsüß\n");
+        List<String> seen = TryFiles.lines(file, cs -> {
+            StringBuilder chars = new StringBuilder();
+            for (int i = 0; i < cs.length(); i++) {
+                chars.append(cs.charAt(i));
+            }
+            assertEquals(cs.toString(), chars.toString());
+            return chars + "|" + cs.subSequence(0, 3) + "|" + Pattern.compile("\\p{L}+").matcher(cs).results().count();
+        }).map(TryWrap::right).collect(Collectors.toList());
+        assertEquals(List.of("naïve café €5 \uD834\uDD1E|naï|2", "plain ascii|pla|2", "süß|süß|1"), seen);
+    }
+
+    @Test
+    public void testCharsetsThatArentAsciiCompatibleAreRefused() {
+        assertThrows(IllegalArgumentException.class,
+                () -> TryFiles.lines(dir.resolve("any"), StandardCharsets.UTF_16, 4096, CharSequence::toString));
+    }
+
+    @Test
+    public void testMissingFileIsALeft() {
+        List<TryWrap<String>> result = TryFiles.lines(dir.resolve("doesNotExist"), CharSequence::toString)
+                .collect(Collectors.toList());
+        assertEquals(1, result.size());
+        assertTrue(result.get(0).left() instanceof NoSuchFileException);
+    }
+
+    @Test
+    public void testLinesLongerThanTheWindow() throws IOException {
+        String longLine = "x".repeat(1000);
+        Path file = write("a\n" + longLine + "\nb\n");
+        List<Integer> lengths = TryFiles.lines(file, StandardCharsets.UTF_8, 16, CharSequence::length)
+                .map(TryWrap::right)
+                .collect(Collectors.toList());
+        assertEquals(List.of(1, 1000, 1), lengths);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws IOException {
+        String text = IntStream.range(0, 200_000).mapToObj(Integer::toString)
+                .collect(Collectors.joining("\n", "", "\n"));
+        Path file = write(text);
+
+        try (Stream<TryWrap<Integer>> lines = TryFiles.lines(file, StandardCharsets.UTF_8, 4096,
+                cs -> Integer.parseInt(cs.toString()))) {
+            TryWrap<List<Integer>> all = lines.parallel().collect(TryWrapCollectors.sequence());
+            List<Integer> expected = IntStream.range(0, 200_000).boxed().collect(Collectors.toList());
+            assertEquals(expected, all.right());
+        }
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = Files.createTempFile(dir, "lines", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
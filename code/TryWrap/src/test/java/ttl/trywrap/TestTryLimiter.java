@@ -0,0 +1,179 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The simulations run against a stand-in service that can work on 20
+ * calls at once, at 10ms each - a capacity of 2 calls per ms.  Any more
+ * than 20 at once and they share it, so each takes longer.  Calls arrive
+ * at 4 per ms, twice what it can do, and a caller gives up on a call that
+ * takes over 50ms, so a slow call is as good as a failed one.
+ *
+ * Time is simulated, so the results are the same on every run.
+ *
+ * @author whynot
+ */
+public class TestTryLimiter {
+
+    private static final long MS = 1_000_000;
+    private static final int SERVICE_CONCURRENCY = 20;
+    private static final long SERVICE_TIME = 10 * MS;
+    private static final long CALLER_TIMEOUT = 50 * MS;
+    private static final long ARRIVAL_EVERY = MS / 4;
+    private static final long RUN_FOR = 20_000 * MS;
+
+    @Test
+    public void testRejectsOverTheLimit() {
+        TryLimiter limiter = new TryLimiter(TryLimiter.aimd(2, 1, 10, 0.5, Duration.ofSeconds(1)));
+        TryLimiter.Permit a = limiter.tryAcquire();
+        TryLimiter.Permit b = limiter.tryAcquire();
+        assertNull(limiter.tryAcquire());
+        assertTrue(limiter.call(() -> 1).left() instanceof TryLimiter.LimitExceededException);
+        assertEquals(2, limiter.rejected());
+
+        a.release(false);
+        b.release(false);
+        assertEquals(1, limiter.call(() -> 1).right());
+    }
+
+    @Test
+    public void testPermitReleasesOnlyOnce() {
+        TryLimiter limiter = new TryLimiter(TryLimiter.aimd(100, 1, 200, 0.5, Duration.ofSeconds(1)));
+        TryLimiter.Permit permit = limiter.tryAcquire();
+        assertTrue(permit.release(true));
+        assertFalse(permit.release(true));
+        assertEquals(0, limiter.inFlight());
+        assertEquals(50, limiter.limit());
+    }
+
+    @Test
+    public void testAimdBacksOffOnLefts() {
+        TryLimiter limiter = new TryLimiter(TryLimiter.aimd(100, 1, 200, 0.5, Duration.ofSeconds(1)));
+        limiter.call(() -> 10 / 0);
+        assertEquals(50, limiter.limit());
+    }
+
+    @Test
+    public void testErrorReleasesTheSlotAsAFailure() {
+        TryLimiter limiter = new TryLimiter(TryLimiter.aimd(100, 1, 200, 0.5, Duration.ofSeconds(1)));
+        assertThrows(StackOverflowError.class, () -> limiter.call(() -> {
+            throw new StackOverflowError();
+        }));
+        assertEquals(0, limiter.inFlight());
+        assertEquals(50, limiter.limit());
+    }
+
+    @Test
+    public void testUnlimitedCollapses() {
+        TryLimiter.Algorithm unlimited = new TryLimiter.Algorithm() {
+            @Override
+            public int initialLimit() {
+                return Integer.MAX_VALUE;
+            }
+
+            @Override
+            public int onSample(int limit, long rttNanos, int inFlight, boolean failed) {
+                return Integer.MAX_VALUE;
+            }
+        };
+        Simulation sim = simulate(unlimited);
+        assertTrue(sim.goodput() < 0.2, "Goodput: " + sim.goodput());
+    }
+
+    @Test
+    public void testAimdKeepsGoodputNearCapacity() {
+        Simulation sim = simulate(TryLimiter.aimd(10, 1, 1000, 0.9, Duration.ofMillis(15)));
+        assertTrue(sim.goodput() > 1.6, "Goodput: " + sim.goodput());
+        assertTrue(sim.meanLatency() < 2 * SERVICE_TIME, "Mean latency: " + sim.meanLatency());
+    }
+
+    @Test
+    public void testVegasKeepsGoodputNearCapacity() {
+        Simulation sim = simulate(TryLimiter.vegas(10, 1, 1000));
+        assertTrue(sim.goodput() > 1.6, "Goodput: " + sim.goodput());
+        assertTrue(sim.meanLatency() < 2 * SERVICE_TIME, "Mean latency: " + sim.meanLatency());
+        assertTrue(sim.limiter.limit() >= SERVICE_CONCURRENCY && sim.limiter.limit() < 2 * SERVICE_CONCURRENCY,
+                "Limit: " + sim.limiter.limit());
+    }
+
+    private Simulation simulate(TryLimiter.Algorithm algorithm) {
+        Simulation sim = new Simulation(algorithm);
+        sim.run();
+        return sim;
+    }
+
+    /**
+     * Only the second half of the run is measured, once the limit has settled.
+     */
+    private static class Simulation {
+        private final long[] now = new long[1];
+        private final TryLimiter limiter;
+        private final PriorityQueue<Call> running = new PriorityQueue<>();
+        private long good;
+        private long measured;
+        private long totalLatency;
+
+        private Simulation(TryLimiter.Algorithm algorithm) {
+            limiter = new TryLimiter(algorithm, () -> now[0]);
+        }
+
+        private void run() {
+            for (long t = 0; t < RUN_FOR; t += ARRIVAL_EVERY) {
+                while (!running.isEmpty() && running.peek().done <= t) {
+                    Call call = running.poll();
+                    now[0] = call.done;
+                    boolean tooSlow = call.latency > CALLER_TIMEOUT;
+                    call.permit.release(tooSlow);
+                    if (call.done >= RUN_FOR / 2) {
+                        measured++;
+                        totalLatency += call.latency;
+                        if (!tooSlow) {
+                            good++;
+                        }
+                    }
+                }
+                now[0] = t;
+                TryLimiter.Permit permit = limiter.tryAcquire();
+                if (permit != null) {
+                    int busy = limiter.inFlight();
+                    long latency = SERVICE_TIME * Math.max(SERVICE_CONCURRENCY, busy) / SERVICE_CONCURRENCY;
+                    running.add(new Call(permit, t + latency, latency));
+                }
+            }
+        }
+
+        private double goodput() {
+            return (double) good / ((RUN_FOR / 2) / MS);
+        }
+
+        private long meanLatency() {
+            return measured == 0 ? Long.MAX_VALUE : totalLatency / measured;
+        }
+    }
+
+    private static class Call implements Comparable<Call> {
+        private final TryLimiter.Permit permit;
+        private final long done;
+        private final long latency;
+
+        private Call(TryLimiter.Permit permit, long done, long latency) {
+            this.permit = permit;
+            this.done = done;
+            this.latency = latency;
+        }
+
+        @Override
+        public int compareTo(Call other) {
+            return Long.compare(done, other.done);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryLogSink {
+
+    @Test
+    public void testFailuresAreWritten() throws InterruptedException {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        TryLogSink sink = new TryLogSink(16, Duration.ofMinutes(1), lines::add);
+
+        TryWrap.of(() -> 10 / 0).orElseConsume(sink);
+        TryWrap.of(() -> Integer.parseInt("abc")).orElseConsume(sink);
+        sink.close();
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("java.lang.ArithmeticException"));
+        assertTrue(lines.get(1).startsWith("java.lang.NumberFormatException"));
+        assertEquals(2, sink.written());
+    }
+
+    @Test
+    public void testRepeatsAreDeduped() throws InterruptedException {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        TryLogSink sink = new TryLogSink(256, Duration.ofMinutes(1), lines::add);
+
+        for (int i = 0; i < 100; i++) {
+            TryWrap.of(this::fail).orElseConsume(sink);
+        }
+        sink.close();
+
+        assertEquals(99, sink.deduped());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("repeated 99 more times"));
+    }
+
+    @Test
+    public void testFullRingDrops() throws InterruptedException {
+        CountDownLatch stuck = new CountDownLatch(1);
+        TryLogSink sink = new TryLogSink(4, Duration.ZERO, s -> stuck.await());
+
+        TryWrap.of(this::fail).orElseConsume(sink);
+        //Let the drain thread pick up the first one and get stuck writing it.
+        while (sink.dropped() == 0) {
+            for (int i = 0; i < 10; i++) {
+                TryWrap.of(this::fail).orElseConsume(sink);
+            }
+            Thread.sleep(1);
+        }
+        stuck.countDown();
+        sink.close();
+        assertTrue(sink.dropped() > 0);
+    }
+
+    @Test
+    public void testAcceptAfterCloseIsDropped() throws InterruptedException {
+        TryLogSink sink = new TryLogSink(4, Duration.ZERO, s -> { });
+        sink.close();
+        sink.accept(new RuntimeException("late"));
+        assertEquals(1, sink.dropped());
+        assertEquals(0, sink.written());
+    }
+
+    @Test
+    public void testNothingIsLostWhileClosing() throws Exception {
+        TryLogSink sink = new TryLogSink(1024, Duration.ZERO, s -> { });
+        AtomicLong accepted = new AtomicLong();
+        CountDownLatch running = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            Thread producer = new Thread(() -> {
+                running.countDown();
+                for (int i = 0; i < 50_000; i++) {
+                    sink.accept(new RuntimeException("n" + i));
+                    accepted.incrementAndGet();
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        running.await();
+        sink.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(accepted.get(), sink.written() + sink.deduped() + sink.dropped());
+    }
+
+    @Test
+    public void testForgottenRepeatsAreWritten() throws InterruptedException {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        TryLogSink sink = new TryLogSink(4096, Duration.ofMillis(20), lines::add);
+        for (int i = 0; i < 3; i++) {
+            TryWrap.of(this::fail).orElseConsume(sink);
+        }
+        Thread.sleep(50);
+        //Enough new keys to make the sink forget the old one.
+        for (int i = 0; i < 1024; i++) {
+            sink.accept(thrownAt(i, "n"));
+        }
+        sink.close();
+
+        assertTrue(lines.stream().anyMatch(line -> line.contains("repeated 2 more times")), lines.toString());
+    }
+
+    @Test
+    public void testMessagesDontSplitTheDedupe() throws InterruptedException {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        TryLogSink sink = new TryLogSink(256, Duration.ofMinutes(1), lines::add);
+        for (int i = 0; i < 10; i++) {
+            sink.accept(thrownAt(1, "order " + i + " not found"));
+        }
+        sink.accept(thrownAt(2, "order 0 not found"));
+        sink.close();
+
+        assertEquals(9, sink.deduped());
+        assertEquals(3, lines.size(), lines.toString());
+    }
+
+    @Test
+    public void testNullIsDropped() throws InterruptedException {
+        TryLogSink sink = new TryLogSink(4, Duration.ZERO, s -> { });
+        sink.accept(null);
+        sink.accept(new RuntimeException("after"));
+        sink.close();
+        assertEquals(1, sink.dropped());
+        assertEquals(1, sink.written());
+    }
+
+    @Test
+    public void testErrorFromTheOutputDoesntStopTheSink() throws InterruptedException {
+        List<String> lines = new CopyOnWriteArrayList<>();
+        TryLogSink sink = new TryLogSink(16, Duration.ZERO, s -> {
+            if (s.contains("first")) {
+                throw new AssertionError("Console gone");
+            }
+            lines.add(s);
+        });
+        sink.accept(new RuntimeException("first"));
+        sink.accept(new RuntimeException("second"));
+        sink.close();
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("second"));
+    }
+
+    private static RuntimeException thrownAt(int line, String message) {
+        RuntimeException e = new RuntimeException(message);
+        e.setStackTrace(new StackTraceElement[]{new StackTraceElement("Orders", "find", "Orders.java", line)});
+        return e;
+    }
+
+    private int fail() throws TryFailure {
+        throw TryFailure.of("Same every time");
+    }
+}
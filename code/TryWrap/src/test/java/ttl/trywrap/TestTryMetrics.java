@@ -0,0 +1,92 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryMetrics {
+
+    @AfterEach
+    public void tearDown() {
+        TryMetrics.setEnabled(false);
+        TryMetrics.reset();
+    }
+
+    @Test
+    public void testOutcomesAreCountedPerOp() {
+        TryMetrics.setEnabled(true);
+        TryProbe probe = TryMetrics.probe("test.outcomes");
+
+        TryWrap<Integer> ten = probe.of(() -> 10);
+        probe.of(() -> 10 / 0);
+        probe.map(ten, x -> x / 0);
+        probe.map(ten, x -> x + 1);
+        probe.filter(ten, x -> x > 100);
+        probe.flatMap(ten, x -> TryWrap.ofRight(x * 2));
+
+        TryProbe.Snapshot s = probe.snapshot();
+        assertEquals(1, s.count(TryProbe.Op.OF, TryProbe.Outcome.RIGHT));
+        assertEquals(1, s.count(TryProbe.Op.OF, TryProbe.Outcome.LEFT));
+        assertEquals(1, s.count(TryProbe.Op.MAP, TryProbe.Outcome.RIGHT));
+        assertEquals(1, s.count(TryProbe.Op.MAP, TryProbe.Outcome.LEFT));
+        assertEquals(1, s.count(TryProbe.Op.FILTER, TryProbe.Outcome.EMPTY));
+        assertEquals(1, s.count(TryProbe.Op.FLAT_MAP, TryProbe.Outcome.RIGHT));
+        assertEquals(2L, s.getFailuresByClass().get(ArithmeticException.class));
+        assertEquals(2, s.total(TryProbe.Outcome.LEFT));
+    }
+
+    @Test
+    public void testDisabledCountsNothing() {
+        TryProbe probe = TryMetrics.probe("test.disabled");
+        assertEquals(10, probe.of(() -> 10).right());
+        probe.of(() -> 10 / 0);
+        assertEquals(0, probe.snapshot().total(TryProbe.Outcome.RIGHT));
+        assertEquals(0, probe.snapshot().total(TryProbe.Outcome.LEFT));
+    }
+
+    @Test
+    public void testSoloTry() {
+        TryMetrics.setEnabled(true);
+        TryProbe probe = TryMetrics.probe("test.solo");
+        probe.record(TryProbe.Op.OF, SoloTry.of(() -> 1));
+        probe.record(TryProbe.Op.OF, SoloTry.of(() -> 10 / 0));
+        probe.record(TryProbe.Op.OF, SoloTry.of(() -> null));
+        assertEquals(2, probe.count(TryProbe.Op.OF, TryProbe.Outcome.RIGHT));
+        assertEquals(1, probe.count(TryProbe.Op.OF, TryProbe.Outcome.LEFT));
+        assertEquals(1L, probe.snapshot().getFailuresByClass().get(ArithmeticException.class));
+    }
+
+    @Test
+    public void testNullRightCountsAsEmpty() {
+        TryMetrics.setEnabled(true);
+        TryProbe probe = TryMetrics.probe("test.nullRight");
+        probe.of(() -> null);
+        assertEquals(0, probe.count(TryProbe.Op.OF, TryProbe.Outcome.RIGHT));
+        assertEquals(1, probe.count(TryProbe.Op.OF, TryProbe.Outcome.EMPTY));
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        TryMetrics.setEnabled(true);
+        TryMetrics.registerMBean();
+        TryMetrics.registerMBean();
+        TryMetrics.probe("test.mbean").of(() -> 10 / 0);
+
+        TryMetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+                new ObjectName(TryMetrics.MBEAN_NAME), TryMetricsMXBean.class);
+        assertTrue(bean.isEnabled());
+        Map<String, Long> failures = bean.getFailuresByClass();
+        assertEquals(1L, failures.get("test.mbean:java.lang.ArithmeticException"));
+        assertEquals(1L, bean.getCounts().get("test.mbean.OF.LEFT"));
+    }
+}
@@ -0,0 +1,159 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryRetry {
+
+    private final RetryPolicy fast = RetryPolicy.of(5, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    @Test
+    public void testRetriesUntilRight() {
+        AtomicInteger calls = new AtomicInteger();
+        TryWrap<Integer> result = TryWrap.retrying(fast, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IOException("Not yet");
+            }
+            return 42;
+        });
+        assertEquals(42, result.right());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+        TryWrap<Integer> result = TryWrap.retrying(fast, () -> {
+            calls.incrementAndGet();
+            throw new IOException("Never");
+        });
+        assertTrue(result.left() instanceof IOException);
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    public void testOnlyClassifiedFailuresAreRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        TryWrap<Integer> result = TryWrap.retrying(fast.retryOn(IOException.class), () -> {
+            calls.incrementAndGet();
+            return 10 / 0;
+        });
+        assertTrue(result.left() instanceof ArithmeticException);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testBudgetCapsRetries() {
+        RetryBudget budget = new RetryBudget(0.1, 2);
+        RetryPolicy policy = fast.withBudget(budget);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 10; i++) {
+            TryWrap.retrying(policy, () -> {
+                calls.incrementAndGet();
+                throw new IOException("Down");
+            });
+        }
+        //10 first calls and the 2 saved up retries.  The 0.9 of a token
+        //put in by the later calls is not enough for another.
+        assertEquals(12, calls.get());
+        assertTrue(budget.available() < 1);
+    }
+
+    @Test
+    public void testDelaysAreJitteredAndCapped() {
+        RetryPolicy policy = RetryPolicy.of(10, Duration.ofMillis(10), Duration.ofMillis(100));
+        long delay = 0;
+        for (int i = 0; i < 50; i++) {
+            delay = policy.nextDelayNanos(delay);
+            assertTrue(delay >= Duration.ofMillis(10).toNanos());
+            assertTrue(delay <= Duration.ofMillis(100).toNanos());
+        }
+    }
+
+    @Test
+    public void testAsync() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            AsyncTryWrap<Integer> result = TryWrap.retryingAsync(fast, () -> {
+                if (calls.incrementAndGet() < 4) {
+                    throw new IOException("Not yet");
+                }
+                return 42;
+            }, scheduler);
+            assertEquals(42, result.join().right());
+            assertEquals(4, calls.get());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInterruptIsNotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            TryWrap<Integer> result = TryWrap.retrying(fast, () -> {
+                calls.incrementAndGet();
+                throw new InterruptedException();
+            });
+            assertTrue(result.left() instanceof InterruptedException);
+            assertEquals(1, calls.get());
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    public void testAsyncInterruptIsALeftOnly() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            CountDownLatch watching = new CountDownLatch(1);
+            AsyncTryWrap<Integer> result = TryWrap.retryingAsync(fast, () -> {
+                watching.await();
+                throw new InterruptedException();
+            }, scheduler);
+            AtomicBoolean interrupted = new AtomicBoolean(true);
+            CountDownLatch done = new CountDownLatch(1);
+            result.whenDone(t -> {
+                //Runs in the scheduler thread, which completes the result.
+                interrupted.set(Thread.currentThread().isInterrupted());
+                done.countDown();
+            });
+            watching.countDown();
+            done.await();
+            assertTrue(result.join().left() instanceof InterruptedException);
+            assertFalse(interrupted.get());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAsyncErrorCompletesTheResult() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            AsyncTryWrap<Integer> result = TryWrap.retryingAsync(fast, () -> {
+                throw new StackOverflowError();
+            }, scheduler);
+            Exception left = result.join().left();
+            assertTrue(left.getCause() instanceof StackOverflowError, left.toString());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+}
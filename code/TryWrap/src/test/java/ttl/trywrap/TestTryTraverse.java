@@ -0,0 +1,57 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryTraverse {
+
+    private final List<Integer> numbers = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+
+    @Test
+    public void testAllRightKeepsOrder() {
+        TryWrap<List<Integer>> result = TryWrap.traverseParallel(numbers, x -> x * 2);
+        List<Integer> expected = numbers.stream().map(x -> x * 2).collect(Collectors.toList());
+        assertEquals(expected, result.right());
+    }
+
+    @Test
+    public void testFailureGivesUpEarly() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            TryWrap<List<Integer>> result = TryWrap.traverseParallel(pool, numbers, x -> {
+                calls.incrementAndGet();
+                //Every piece hits a failure within its first 1000 elements.
+                if (x % 1000 == 999) {
+                    throw new IllegalArgumentException("Bad element: " + x);
+                }
+                return x;
+            });
+            assertTrue(result.left() instanceof IllegalArgumentException);
+            assertTrue(calls.get() < numbers.size(), "Should not have looked at every element: " + calls.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testEmptyAndNonRandomAccessLists() {
+        assertEquals(Collections.emptyList(), TryWrap.traverseParallel(Collections.<Integer>emptyList(), x -> x).right());
+
+        List<String> linked = new LinkedList<>(List.of("1", "2", "3"));
+        assertEquals(List.of(1, 2, 3), TryWrap.traverseParallel(linked, Integer::parseInt).right());
+    }
+}
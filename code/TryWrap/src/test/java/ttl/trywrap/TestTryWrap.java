@@ -19,6 +19,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -183,6 +185,34 @@ public class TestTryWrap {
         });
     }
 
+    @Test
+    public void testEmptyIsShared() {
+        TryWrap<String> filtered = TryWrap.of(() -> "abc").filter(s -> s.length() > 5);
+        TryWrap<?> ran = TryWrap.ofRunnable(() -> {});
+
+        assertSame(TryWrap.ofEmpty(), filtered);
+        assertSame(TryWrap.ofEmpty(), ran);
+    }
+
+    @Test
+    public void testMapOnALeftReusesTheLeft() {
+        TryWrap<Integer> me = TryWrap.of(() -> 10 / 0);
+        TryWrap<String> mapped = me.map(i -> "" + i);
+        TryWrap<String> flatMapped = me.flatMap(i -> TryWrap.ofRight("" + i));
+
+        assertSame(me, mapped);
+        assertSame(me, flatMapped);
+    }
+
+    @Test
+    public void testOrElseThrowOnAnEmptyThrowsExceptionWithStackTrace() {
+        TryWrap<String> me = TryWrap.ofEmpty();
+        NoSuchElementException e = assertThrows(NoSuchElementException.class, me::orElseThrow);
+
+        assertTrue(e.getStackTrace().length > 0);
+        assertNotSame(me.left(), e);
+    }
+
     @Test
     public void testFiltering() {
         List<String> fileNames = Arrays.asList("large", "small", "doesNotExist");
@@ -0,0 +1,116 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author whynot
+ */
+public class TestTryWrapCollectors {
+
+    private List<TryWrap<Integer>> mixed() {
+        return IntStream.range(0, 10_000)
+                .mapToObj(i -> TryWrap.of(() -> {
+                    if (i % 10 == 3) {
+                        throw new IllegalArgumentException("" + i);
+                    }
+                    return i;
+                }))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testPartition() {
+        TryWrapCollectors.Partition<Integer> p = mixed().stream()
+                .collect(TryWrapCollectors.partition());
+
+        assertEquals(9000, p.successes().size());
+        assertEquals(1000, p.failures().size());
+        assertEquals("3", p.failures().get(0).getMessage());
+    }
+
+    @Test
+    public void testPartitionCountsEmpties() {
+        TryWrapCollectors.Partition<String> p = Arrays.asList(
+                TryWrap.ofRight("a"), TryWrap.<String>ofEmpty(), TryWrap.<String>ofLeft(new Exception()))
+                .stream()
+                .collect(TryWrapCollectors.partition(3));
+
+        assertEquals(1, p.successes().size());
+        assertEquals(1, p.failures().size());
+        assertEquals(1, p.empties());
+    }
+
+    @Test
+    public void testParallelPartitionKeepsOrder() {
+        List<TryWrap<Integer>> tries = mixed();
+        TryWrapCollectors.Partition<Integer> sequential = tries.stream().collect(TryWrapCollectors.partition());
+        TryWrapCollectors.Partition<Integer> parallel = tries.parallelStream().collect(TryWrapCollectors.partition());
+
+        assertEquals(sequential.successes(), parallel.successes());
+        assertEquals(sequential.failures(), parallel.failures());
+    }
+
+    @Test
+    public void testSizedCollectorCanBeUsedAgainInParallel() {
+        List<TryWrap<Integer>> tries = mixed();
+        Collector<TryWrap<? extends Integer>, ?, TryWrapCollectors.Partition<Integer>> sized =
+                TryWrapCollectors.partition(tries.size());
+        TryWrapCollectors.Partition<Integer> sequential = tries.stream().collect(TryWrapCollectors.partition());
+        for (int i = 0; i < 3; i++) {
+            TryWrapCollectors.Partition<Integer> parallel = tries.parallelStream().collect(sized);
+            assertEquals(sequential.successes(), parallel.successes());
+            assertEquals(sequential.failures(), parallel.failures());
+        }
+    }
+
+    @Test
+    public void testSequenceAllRights() {
+        TryWrap<List<Integer>> result = IntStream.range(0, 1000).boxed()
+                .map(TryWrap::ofRight)
+                .parallel()
+                .collect(TryWrapCollectors.sequence(1000));
+
+        assertTrue(result.isRight());
+        assertEquals(1000, result.right().size());
+        assertEquals(999, result.right().get(999));
+    }
+
+    @Test
+    public void testSequenceGivesFirstFailure() {
+        TryWrap<List<Integer>> result = mixed().parallelStream().collect(TryWrapCollectors.sequence());
+
+        assertTrue(result.isLeft());
+        assertEquals("3", result.left().getMessage());
+    }
+
+    @Test
+    public void testSequenceWithEmptyGivesEmpty() {
+        TryWrap<List<String>> result = Arrays.asList(TryWrap.ofRight("a"), TryWrap.<String>ofEmpty())
+                .stream()
+                .collect(TryWrapCollectors.sequence());
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testFirstFailure() {
+        Optional<Exception> first = mixed().parallelStream().collect(TryWrapCollectors.firstFailure());
+        assertEquals("3", first.get().getMessage());
+
+        Optional<Exception> none = IntStream.range(0, 10).boxed()
+                .map(TryWrap::ofRight)
+                .collect(TryWrapCollectors.firstFailure());
+        assertFalse(none.isPresent());
+    }
+}
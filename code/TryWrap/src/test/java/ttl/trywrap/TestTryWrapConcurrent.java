@@ -0,0 +1,136 @@
+package ttl.trywrap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the TryWrap methods that run work on other threads.
+ *
+ * @author whynot
+ */
+public class TestTryWrapConcurrent {
+
+    private ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOfAllRunsConcurrentlyAndKeepsOrder() {
+        long start = System.nanoTime();
+        List<TryWrap<String>> results = TryWrap.ofAll(executor, Duration.ofSeconds(5),
+                () -> sleepAndReturn(300, "a"),
+                () -> sleepAndReturn(300, "b"),
+                () -> sleepAndReturn(300, "c"));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("a", results.get(0).right());
+        assertEquals("b", results.get(1).right());
+        assertEquals("c", results.get(2).right());
+        assertTrue(millis < 800, "Took " + millis);
+    }
+
+    @Test
+    public void testOfAllTimesOutAndInterruptsSlowSuppliers() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<MySupplier<String>> suppliers = new ArrayList<>();
+        suppliers.add(() -> "fast");
+        suppliers.add(() -> {
+            try {
+                return sleepAndReturn(10_000, "slow");
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        });
+        suppliers.add(() -> 10 / 0 + "");
+
+        long start = System.nanoTime();
+        List<TryWrap<String>> results = TryWrap.ofAll(executor, Duration.ofMillis(200), suppliers);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("fast", results.get(0).right());
+        assertTrue(results.get(1).left() instanceof TimeoutException);
+        assertTrue(results.get(2).left() instanceof ArithmeticException);
+        assertTrue(millis < 1000, "Took " + millis);
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOfWithinInTime() {
+        TryWrap<String> result = TryWrap.ofWithin(Duration.ofSeconds(5), () -> "quick");
+        assertEquals("quick", result.right());
+    }
+
+    @Test
+    public void testOfWithinTimesOut() {
+        long start = System.nanoTime();
+        TryWrap<String> result = TryWrap.ofWithin(Duration.ofMillis(100), () -> sleepAndReturn(10_000, "slow"));
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(result.left() instanceof TimeoutException);
+        assertTrue(millis < 1000, "Took " + millis);
+    }
+
+    @Test
+    public void testOfWithinCancellableStopsCodeThatIgnoresInterrupts() throws InterruptedException {
+        CountDownLatch stopped = new CountDownLatch(1);
+        TryWrap<Long> result = TryWrap.ofWithinCancellable(executor, Duration.ofMillis(100), token -> {
+            long sum = 0;
+            try {
+                //Like BadWorker - never blocks, so an interrupt won't stop it
+                for (long i = 0; ; i++) {
+                    if ((i & 0xFFFF) == 0) {
+                        token.throwIfCancelled();
+                    }
+                    sum += i;
+                }
+            } finally {
+                stopped.countDown();
+            }
+        });
+
+        assertTrue(result.left() instanceof TimeoutException);
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOfRunnableWithin() {
+        TryWrap<?> ok = TryWrap.ofRunnableWithin(Duration.ofSeconds(5), () -> {});
+        TryWrap<?> failed = TryWrap.ofRunnableWithin(Duration.ofSeconds(5), () -> {
+            int i = 10 / 0;
+        });
+
+        assertTrue(ok.isEmpty());
+        assertTrue(failed.left() instanceof ArithmeticException);
+    }
+
+    @Test
+    public void testOfRunnableWithinOnGivenExecutor() {
+        List<String> threads = new ArrayList<>();
+        TryWrap<?> ok = TryWrap.ofRunnableWithin(executor, Duration.ofSeconds(5),
+                () -> threads.add(Thread.currentThread().getName()));
+
+        assertTrue(ok.isEmpty());
+        assertTrue(threads.get(0).startsWith("pool-"), threads.get(0));
+    }
+
+    private String sleepAndReturn(long millis, String value) throws InterruptedException {
+        Thread.sleep(millis);
+        return value;
+    }
+}